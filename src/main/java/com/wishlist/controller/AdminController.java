@@ -0,0 +1,49 @@
+package com.wishlist.controller;
+
+import com.wishlist.domain.model.ArchiveReport;
+import com.wishlist.domain.model.OutboxMetrics;
+import com.wishlist.infra.mongo.SlowQueryRecorder;
+import com.wishlist.infra.mongo.SlowQueryReport;
+import com.wishlist.service.WishlistArchiveService;
+import com.wishlist.service.WishlistOutboxRelay;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/admin")
+public class AdminController {
+
+    @Autowired
+    private SlowQueryRecorder slowQueryRecorder;
+
+    @Autowired
+    private WishlistOutboxRelay wishlistOutboxRelay;
+
+    @Autowired
+    private WishlistArchiveService wishlistArchiveService;
+
+    @GetMapping("/slow-queries")
+    public ResponseEntity<SlowQueryReport> getSlowQueries() {
+        return ResponseEntity.ok(slowQueryRecorder.report());
+    }
+
+    @DeleteMapping("/slow-queries")
+    public ResponseEntity<String> clearSlowQueries() {
+        slowQueryRecorder.clear();
+        return ResponseEntity.ok("Registro de consultas lentas limpo com sucesso");
+    }
+
+    @GetMapping("/outbox")
+    public ResponseEntity<OutboxMetrics> getOutboxMetrics() {
+        return ResponseEntity.ok(wishlistOutboxRelay.metrics());
+    }
+
+    @PostMapping("/archive")
+    public ResponseEntity<ArchiveReport> archive(@RequestParam(name = "maxAgeDays", required = false) final Integer maxAgeDays) {
+        ArchiveReport report = maxAgeDays == null
+                ? wishlistArchiveService.archive()
+                : wishlistArchiveService.archive(maxAgeDays);
+        return ResponseEntity.ok(report);
+    }
+}
@@ -1,12 +1,25 @@
 package com.wishlist.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.wishlist.domain.model.ClientWishlist;
 import com.wishlist.domain.model.Wishlist;
 import com.wishlist.domain.model.WishlistItem;
+import com.wishlist.domain.model.WishlistProjection;
+import com.wishlist.domain.model.WishlistView;
+import com.wishlist.service.WishlistBatchService;
 import com.wishlist.service.WishlistService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.stream.Stream;
 
 @RestController
 @RequestMapping("/wishlist")
@@ -15,22 +28,52 @@ public class WishlistController {
     @Autowired
     private WishlistService wishlistService;
 
+    @Autowired
+    private WishlistBatchService wishlistBatchService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
     @GetMapping("/{id}")
-    public ResponseEntity<WishlistItem> getWishlistItemById(@PathVariable final Long id) {
-        WishlistItem item = wishlistService.getWishlistItemById(id);
+    public ResponseEntity<?> getWishlistItemById(@PathVariable final Long id,
+                                                 @RequestParam(name = "view", defaultValue = "full") final String view) {
+        Object item = wishlistService.getWishlistItemById(id, WishlistView.of(view).getType());
         return ResponseEntity.ok(item);
     }
 
     @GetMapping("/client/{clientId}")
-    public ResponseEntity<Wishlist> getWishlistbyClientId(@PathVariable("clientId") final Integer clientId) {
-        Wishlist wishlist = wishlistService.getWishlistByClientId(clientId);
-        return ResponseEntity.ok(wishlist);
+    public ResponseEntity<WishlistProjection<?>> getWishlistbyClientId(@PathVariable("clientId") final Integer clientId,
+                                                                       @RequestParam(name = "includeArchived", defaultValue = "false") final boolean includeArchived,
+                                                                       @RequestParam(name = "view", defaultValue = "full") final String view) {
+        List<?> itens = wishlistService.getWishlistItensByClientId(clientId, includeArchived, WishlistView.of(view).getType());
+        return ResponseEntity.ok(new WishlistProjection<>(itens));
+    }
+
+    @PostMapping("/clients")
+    public ResponseEntity<StreamingResponseBody> getWishlistsByClientIds(@RequestBody final List<Integer> clientIds) {
+        Stream<ClientWishlist> wishlists = wishlistBatchService.getWishlistsByClientIds(clientIds);
+        StreamingResponseBody body = outputStream -> {
+            // fechar o stream cancela os lotes pendentes se o cliente desconectar ou a escrita falhar
+            try (wishlists; JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+                generator.writeStartArray();
+                wishlists.forEach(wishlist -> {
+                    try {
+                        generator.writeObject(wishlist);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                generator.writeEndArray();
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
     }
 
     @GetMapping("/client/{clientId}/product/{productId}")
-    public ResponseEntity<WishlistItem> getWishlistByClientIdAndProductId(@PathVariable("clientId") final Integer clientId,
-                                                                          @PathVariable("productId") final Integer productId) {
-        WishlistItem item = wishlistService.getWishlistByClientIdAndProductId(clientId, productId);
+    public ResponseEntity<?> getWishlistByClientIdAndProductId(@PathVariable("clientId") final Integer clientId,
+                                                               @PathVariable("productId") final Integer productId,
+                                                               @RequestParam(name = "view", defaultValue = "full") final String view) {
+        Object item = wishlistService.getWishlistByClientIdAndProductId(clientId, productId, WishlistView.of(view).getType());
         return ResponseEntity.ok(item);
     }
 
@@ -0,0 +1,27 @@
+package com.wishlist.domain.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * Economia estimada pelo tamanho médio dos documentos e das entradas de índice antes do arquivamento.
+ * No WiredTiger o arquivo da coleção quente não encolhe com as remoções; o espaço fica livre para novos
+ * documentos e só volta ao disco depois de um compact.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ArchiveReport {
+
+    public static final String SPACE_NOTE = "Valores estimados; o espaço em disco da coleção quente só é devolvido após compact";
+
+    private LocalDate cutoff;
+    private long itemsArchived;
+    private int batches;
+    private long estimatedDataBytesSaved;
+    private long estimatedIndexBytesSaved;
+    private String note;
+}
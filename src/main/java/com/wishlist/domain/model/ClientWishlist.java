@@ -0,0 +1,16 @@
+package com.wishlist.domain.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ClientWishlist {
+
+    private Integer clientId;
+    private List<WishlistItem> itens;
+}
@@ -0,0 +1,19 @@
+package com.wishlist.domain.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OutboxMetrics {
+
+    private long pending;
+    private long published;
+    private long batches;
+    private long failures;
+    private int lastBatchSize;
+    private long lastBatchMillis;
+    private double eventsPerSecond;
+}
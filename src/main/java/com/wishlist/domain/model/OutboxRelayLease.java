@@ -0,0 +1,23 @@
+package com.wishlist.domain.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+@Document(collection = "wishlist_outbox_lease")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OutboxRelayLease {
+
+    public static final String RELAY = "relay";
+
+    @Id
+    private String id;
+    private String owner;
+    private Instant expiresAt;
+}
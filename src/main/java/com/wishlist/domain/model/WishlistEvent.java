@@ -0,0 +1,44 @@
+package com.wishlist.domain.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.bson.types.ObjectId;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+@Document(collection = "wishlist_outbox")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class WishlistEvent {
+
+    public static final String SEQUENCE_NAME = "wishlist_outbox_sequence";
+
+    @Id
+    private ObjectId id;
+    private WishlistEventType type;
+    private Integer clientId;
+    private Integer productId;
+    private Long itemId;
+    private Instant occurredAt;
+    /**
+     * Ordem de publicação, preenchida pelo outbox ao gravar o evento. O _id (ObjectId) só cresce dentro de um mesmo
+     * processo e o id do item marca quando o id foi entregue, não quando o evento foi escrito; por isso a sequência
+     * vem de um contador próprio do outbox no Mongo, compartilhado entre as instâncias.
+     */
+    @Indexed
+    private Long sequence;
+
+    public static WishlistEvent of(final WishlistEventType type, final WishlistItem item) {
+        return new WishlistEvent(new ObjectId(), type, item.getClientId(), item.getProductId(), item.getId(),
+                Instant.now(), null);
+    }
+
+    public static WishlistEvent purged() {
+        return new WishlistEvent(new ObjectId(), WishlistEventType.PURGED, null, null, null, Instant.now(), null);
+    }
+}
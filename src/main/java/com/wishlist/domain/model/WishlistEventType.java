@@ -0,0 +1,7 @@
+package com.wishlist.domain.model;
+
+public enum WishlistEventType {
+    ADDED,
+    DELETED,
+    PURGED
+}
@@ -6,11 +6,14 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.annotation.Transient;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.LocalDate;
 
 @Document
+@CompoundIndex(name = "clientId_productId", def = "{'clientId': 1, 'productId': 1}")
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -27,5 +30,6 @@ public class WishlistItem {
     @NotNull
     private Integer productId;
     private String productName;
+    @Indexed
     private LocalDate date = LocalDate.now();
 }
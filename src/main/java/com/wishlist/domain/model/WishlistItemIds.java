@@ -0,0 +1,10 @@
+package com.wishlist.domain.model;
+
+import lombok.Value;
+
+@Value
+public class WishlistItemIds {
+
+    Long id;
+    Integer productId;
+}
@@ -0,0 +1,12 @@
+package com.wishlist.domain.model;
+
+import lombok.Value;
+
+@Value
+public class WishlistItemSummary {
+
+    Long id;
+    Integer clientId;
+    Integer productId;
+    String productName;
+}
@@ -0,0 +1,25 @@
+package com.wishlist.domain.model;
+
+import com.wishlist.infra.exception.BadRequestException;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Arrays;
+
+@Getter
+@AllArgsConstructor
+public enum WishlistView {
+
+    IDS(WishlistItemIds.class),
+    SUMMARY(WishlistItemSummary.class),
+    FULL(WishlistItem.class);
+
+    private final Class<?> type;
+
+    public static WishlistView of(final String name) {
+        return Arrays.stream(values())
+                .filter(view -> view.name().equalsIgnoreCase(name))
+                .findFirst()
+                .orElseThrow(() -> new BadRequestException("View inválida: " + name + ". Use ids, summary ou full"));
+    }
+}
@@ -3,10 +3,15 @@ package com.wishlist.domain.repository;
 import com.wishlist.domain.model.WishlistItem;
 import org.springframework.data.mongodb.repository.MongoRepository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 public interface WishlistRepository extends MongoRepository<WishlistItem, Long> {
 
-    List<WishlistItem> findWishlistItemByClientId(Integer clientId);
-    List<WishlistItem> findWishlistItemByClientIdAndProductId(Integer clientId, Integer productId);
-}
\ No newline at end of file
+    <T> Optional<T> findWishlistItemById(Long id, Class<T> type);
+    <T> List<T> findWishlistItemByClientId(Integer clientId, Class<T> type);
+    <T> List<T> findWishlistItemByClientIdAndProductId(Integer clientId, Integer productId, Class<T> type);
+    List<WishlistItem> findWishlistItemByClientIdIn(Collection<Integer> clientIds);
+    WishlistItem deleteWishlistItemById(Long id);
+}
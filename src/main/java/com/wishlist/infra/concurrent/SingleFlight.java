@@ -0,0 +1,87 @@
+package com.wishlist.infra.concurrent;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Agrupa cargas concorrentes da mesma chave: o primeiro chamador executa o loader e quem chegar enquanto
+ * ele ainda está rodando recebe o mesmo resultado. Nada fica guardado depois que a carga termina.
+ */
+public class SingleFlight<K, V> {
+
+    private final Map<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final AtomicInteger waiters = new AtomicInteger();
+    private final int maxInFlight;
+
+    public SingleFlight(final int maxInFlight) {
+        this.maxInFlight = maxInFlight;
+    }
+
+    public V execute(final K key, final Supplier<V> loader) {
+        if (inFlight.size() >= maxInFlight) {
+            return loader.get();
+        }
+        final CompletableFuture<V> flight = new CompletableFuture<>();
+        final CompletableFuture<V> existing = inFlight.putIfAbsent(key, flight);
+        if (existing != null) {
+            waiters.incrementAndGet();
+            try {
+                return await(existing);
+            } finally {
+                waiters.decrementAndGet();
+            }
+        }
+        try {
+            final V value = loader.get();
+            flight.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, flight);
+        }
+    }
+
+    /**
+     * Desvincula as cargas em andamento das chaves afetadas, para que chamadores posteriores façam uma nova
+     * consulta. Quem já estava aguardando recebe o resultado da carga a que se juntou.
+     */
+    public void invalidate(final Predicate<K> matcher) {
+        inFlight.keySet().removeIf(matcher);
+    }
+
+    public void invalidateAll() {
+        inFlight.clear();
+    }
+
+    public int size() {
+        return inFlight.size();
+    }
+
+    /**
+     * Chamadores parados aguardando uma carga iniciada por outro.
+     */
+    public int waiters() {
+        return waiters.get();
+    }
+
+    private static <V> V await(final CompletableFuture<V> flight) {
+        try {
+            return flight.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.wishlist.infra.mongo;
+
+import com.wishlist.domain.model.WishlistEvent;
+import com.wishlist.domain.model.WishlistItem;
+import com.wishlist.service.WishlistArchiveService;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+
+@Slf4j
+@Component
+@AllArgsConstructor
+public class MongoIndexInitializer {
+
+    private final MongoOperations mongoOperations;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void createIndexes() {
+        // fora da thread de startup: sem Mongo disponível a aplicação sobe mesmo assim e só registra o aviso
+        CompletableFuture.runAsync(() -> {
+            try {
+                ensureIndexes();
+            } catch (RuntimeException e) {
+                log.warn("Não foi possível criar os índices do Mongo: {}", e.getMessage());
+            }
+        });
+    }
+
+    public void ensureIndexes() {
+        ensureIndexes(WishlistItem.class);
+        ensureIndexes(WishlistEvent.class);
+        ensureArchiveCollection();
+    }
+
+    public void ensureArchiveCollection() {
+        final String archive = WishlistArchiveService.ARCHIVE_COLLECTION;
+        if (!mongoOperations.collectionExists(archive)) {
+            try {
+                // coleção fria raramente é lida, então vale trocar CPU por disco com zstd
+                mongoOperations.executeCommand(new Document("create", archive)
+                        .append("storageEngine", new Document("wiredTiger",
+                                new Document("configString", "block_compressor=zstd"))));
+            } catch (DataAccessException e) {
+                // outra instância (ou a criação assíncrona do startup) pode ter criado a coleção entre a checagem e o create
+                if (!mongoOperations.collectionExists(archive)) {
+                    throw e;
+                }
+            }
+        }
+        mongoOperations.indexOps(archive).createIndex(new Index("clientId", Sort.Direction.ASC));
+    }
+
+    private void ensureIndexes(final Class<?> entity) {
+        final IndexOperations indexOps = mongoOperations.indexOps(entity);
+        new MongoPersistentEntityIndexResolver(mongoOperations.getConverter().getMappingContext())
+                .resolveIndexFor(entity)
+                .forEach(indexOps::createIndex);
+    }
+}
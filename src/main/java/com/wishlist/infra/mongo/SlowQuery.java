@@ -0,0 +1,42 @@
+package com.wishlist.infra.mongo;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Data
+@NoArgsConstructor
+public class SlowQuery {
+
+    private Instant timestamp;
+    private String database;
+    private String commandName;
+    private String collection;
+    private String shape;
+    private String command;
+    private long durationMs;
+    private Integer docsReturned;
+    private String caller;
+
+    // chega depois pela thread de explain, enquanto o relatório pode estar serializando a entrada:
+    // o plano é imutável e publicado de uma vez por uma referência volatile
+    @JsonIgnore
+    private volatile SlowQueryPlan plan;
+
+    public Long getDocsExamined() {
+        final SlowQueryPlan current = plan;
+        return current == null ? null : current.getDocsExamined();
+    }
+
+    public Long getKeysExamined() {
+        final SlowQueryPlan current = plan;
+        return current == null ? null : current.getKeysExamined();
+    }
+
+    public String getPlanSummary() {
+        final SlowQueryPlan current = plan;
+        return current == null ? null : current.getPlanSummary();
+    }
+}
@@ -0,0 +1,17 @@
+package com.wishlist.infra.mongo;
+
+import lombok.Value;
+
+import java.time.Instant;
+
+@Value
+public class SlowQueryPlan {
+
+    String shape;
+    Instant sampledAt;
+    String planSummary;
+    long docsExamined;
+    long keysExamined;
+    long docsReturned;
+    long executionTimeMs;
+}
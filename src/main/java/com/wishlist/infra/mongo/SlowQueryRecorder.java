@@ -0,0 +1,372 @@
+package com.wishlist.infra.mongo;
+
+import com.mongodb.event.CommandFailedEvent;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import com.mongodb.event.CommandSucceededEvent;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.BsonArray;
+import org.bson.BsonBoolean;
+import org.bson.BsonDocument;
+import org.bson.BsonInt32;
+import org.bson.BsonString;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+@Slf4j
+@Component
+public class SlowQueryRecorder implements CommandListener {
+
+    private static final Set<String> TRACKED_COMMANDS = Set.of(
+            "find", "getMore", "aggregate", "count", "distinct", "findAndModify", "insert", "update", "delete");
+    private static final Set<String> EXPLAINABLE_COMMANDS = Set.of(
+            "find", "aggregate", "count", "distinct", "findAndModify", "update", "delete");
+    private static final Set<String> EXPLAINED_AS_FIND = Set.of("findAndModify", "update", "delete");
+    private static final int MAX_TRACKED_SHAPES = 1000;
+
+    private final Supplier<MongoOperations> mongoOperations;
+    private final ExecutorService explainExecutor;
+    private final long thresholdMs;
+    private final int capacity;
+    private final int explainEvery;
+
+    private final Map<Integer, StartedCommand> inFlight = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong> occurrencesByShape = new ConcurrentHashMap<>();
+    private final Map<String, SlowQueryPlan> plansByShape = new ConcurrentHashMap<>();
+    private final Deque<SlowQuery> buffer = new ArrayDeque<>();
+
+    @Autowired
+    public SlowQueryRecorder(final ObjectProvider<MongoOperations> mongoOperations,
+                             @Value("${wishlist.slow-query.threshold-ms:100}") final long thresholdMs,
+                             @Value("${wishlist.slow-query.capacity:200}") final int capacity,
+                             @Value("${wishlist.slow-query.explain-every:20}") final int explainEvery) {
+        this(mongoOperations::getObject, defaultExplainExecutor(), thresholdMs, capacity, explainEvery);
+    }
+
+    SlowQueryRecorder(final Supplier<MongoOperations> mongoOperations, final ExecutorService explainExecutor,
+                      final long thresholdMs, final int capacity, final int explainEvery) {
+        this.mongoOperations = mongoOperations;
+        this.explainExecutor = explainExecutor;
+        this.thresholdMs = thresholdMs;
+        this.capacity = capacity;
+        this.explainEvery = Math.max(1, explainEvery);
+    }
+
+    @Override
+    public void commandStarted(final CommandStartedEvent event) {
+        final String commandName = event.getCommandName();
+        if (!TRACKED_COMMANDS.contains(commandName)) {
+            return;
+        }
+        // o documento do evento só é válido durante o callback, mas antes do fim não se sabe se o comando será lento:
+        // copia só filtro/sort/limit/projeção, nunca documentos de insert nem o payload de update
+        final String collection = collectionOf(commandName, event.getCommand());
+        inFlight.put(event.getRequestId(), new StartedCommand(collection, queryOf(commandName, collection, event.getCommand())));
+    }
+
+    @Override
+    public void commandSucceeded(final CommandSucceededEvent event) {
+        final StartedCommand started = inFlight.remove(event.getRequestId());
+        if (started == null) {
+            return;
+        }
+        final long durationMs = event.getElapsedTime(TimeUnit.MILLISECONDS);
+        if (durationMs < thresholdMs) {
+            return;
+        }
+        record(event.getDatabaseName(), event.getCommandName(), started, durationMs, docsReturned(event));
+    }
+
+    @Override
+    public void commandFailed(final CommandFailedEvent event) {
+        inFlight.remove(event.getRequestId());
+    }
+
+    public SlowQueryReport report() {
+        final List<SlowQuery> queries;
+        synchronized (buffer) {
+            queries = new ArrayList<>(buffer);
+        }
+        final Map<String, Long> occurrences = new TreeMap<>();
+        occurrencesByShape.forEach((shape, count) -> occurrences.put(shape, count.get()));
+        return new SlowQueryReport(thresholdMs, occurrences, queries, new ArrayList<>(plansByShape.values()));
+    }
+
+    public void clear() {
+        synchronized (buffer) {
+            buffer.clear();
+        }
+        occurrencesByShape.clear();
+        plansByShape.clear();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        explainExecutor.shutdownNow();
+    }
+
+    private void record(final String database, final String commandName, final StartedCommand started,
+                        final long durationMs, final Integer docsReturned) {
+        final String shape = shapeOf(commandName, started);
+        final SlowQuery slowQuery = new SlowQuery();
+        slowQuery.setTimestamp(Instant.now());
+        slowQuery.setDatabase(database);
+        slowQuery.setCommandName(commandName);
+        slowQuery.setCollection(started.collection());
+        slowQuery.setShape(shape);
+        slowQuery.setCommand(started.command() == null ? null : started.command().toJson());
+        slowQuery.setDurationMs(durationMs);
+        slowQuery.setDocsReturned(docsReturned);
+        slowQuery.setCaller(callerOf());
+
+        synchronized (buffer) {
+            if (buffer.size() >= capacity) {
+                buffer.removeLast();
+            }
+            buffer.addFirst(slowQuery);
+        }
+
+        if (occurrencesByShape.size() >= MAX_TRACKED_SHAPES && !occurrencesByShape.containsKey(shape)) {
+            occurrencesByShape.clear();
+            plansByShape.clear();
+        }
+        final long occurrences = occurrencesByShape.computeIfAbsent(shape, key -> new AtomicLong()).incrementAndGet();
+        if (started.command() != null && EXPLAINABLE_COMMANDS.contains(commandName)
+                && (occurrences == 1 || occurrences % explainEvery == 0)) {
+            try {
+                explainExecutor.execute(() -> explain(slowQuery, explainTarget(commandName, started)));
+            } catch (RuntimeException e) {
+                log.debug("Explain descartado para {}", shape, e);
+            }
+        }
+    }
+
+    private void explain(final SlowQuery slowQuery, final BsonDocument command) {
+        try {
+            final BsonDocument explainCommand = new BsonDocument("explain", command)
+                    .append("verbosity", new BsonString("executionStats"));
+            final Document result = mongoOperations.get().execute(db -> db.runCommand(explainCommand));
+            final SlowQueryPlan plan = planOf(slowQuery.getShape(), result);
+            slowQuery.setPlan(plan);
+            plansByShape.put(slowQuery.getShape(), plan);
+        } catch (RuntimeException e) {
+            log.warn("Não foi possível obter o explain de {}: {}", slowQuery.getShape(), e.getMessage());
+        }
+    }
+
+    static SlowQueryPlan planOf(final String shape, final Document explain) {
+        Document queryPlanner = explain.get("queryPlanner", Document.class);
+        Document executionStats = explain.get("executionStats", Document.class);
+        final List<?> stages = explain.get("stages", List.class);
+        if (queryPlanner == null && stages != null && !stages.isEmpty()
+                && stages.get(0) instanceof Document first && first.get("$cursor") instanceof Document cursor) {
+            queryPlanner = cursor.get("queryPlanner", Document.class);
+            executionStats = cursor.get("executionStats", Document.class);
+        }
+        Document winningPlan = queryPlanner == null ? null : queryPlanner.get("winningPlan", Document.class);
+        if (winningPlan != null && winningPlan.get("queryPlan") instanceof Document queryPlan) {
+            winningPlan = queryPlan;
+        }
+        final Document stats = executionStats == null ? new Document() : executionStats;
+        return new SlowQueryPlan(shape, Instant.now(), summarize(winningPlan),
+                longOf(stats.get("totalDocsExamined")), longOf(stats.get("totalKeysExamined")),
+                longOf(stats.get("nReturned")), longOf(stats.get("executionTimeMillis")));
+    }
+
+    private static String summarize(Document stage) {
+        final List<String> parts = new ArrayList<>();
+        while (stage != null) {
+            final Object keyPattern = stage.get("keyPattern");
+            parts.add(keyPattern instanceof Document index
+                    ? stage.getString("stage") + " " + index.toJson()
+                    : stage.getString("stage"));
+            if (stage.get("inputStage") instanceof Document input) {
+                stage = input;
+            } else if (stage.get("inputStages") instanceof List<?> inputs && !inputs.isEmpty()
+                    && inputs.get(0) instanceof Document input) {
+                stage = input;
+            } else {
+                stage = null;
+            }
+        }
+        return parts.isEmpty() ? null : String.join(" > ", parts);
+    }
+
+    static String shapeOf(final String commandName, final StartedCommand started) {
+        final BsonDocument command = started.command();
+        final StringBuilder shape = new StringBuilder(commandName).append(' ').append(started.collection());
+        if (command == null) {
+            return shape.toString();
+        }
+        final BsonValue filter = command.get(filterField(commandName));
+        if (filter != null) {
+            shape.append(' ').append(normalize(filter) instanceof BsonDocument document
+                    ? document.toJson() : new BsonDocument("pipeline", normalize(filter)).toJson());
+        }
+        if (command.get("sort") instanceof BsonDocument sort && !sort.isEmpty()) {
+            shape.append(" sort ").append(sort.toJson());
+        }
+        return shape.toString();
+    }
+
+    private static BsonValue normalize(final BsonValue value) {
+        if (value.isDocument()) {
+            final BsonDocument normalized = new BsonDocument();
+            value.asDocument().forEach((key, child) -> normalized.append(key, normalize(child)));
+            return normalized;
+        }
+        if (value.isArray() && value.asArray().stream().anyMatch(BsonValue::isDocument)) {
+            final BsonArray normalized = new BsonArray();
+            value.asArray().forEach(child -> normalized.add(normalize(child)));
+            return normalized;
+        }
+        return new BsonString("?");
+    }
+
+    private static String filterField(final String commandName) {
+        return switch (commandName) {
+            case "find" -> "filter";
+            case "aggregate" -> "pipeline";
+            case "update", "delete" -> "q";
+            default -> "query";
+        };
+    }
+
+    static BsonDocument queryOf(final String commandName, final String collection, final BsonDocument command) {
+        final List<String> fields = switch (commandName) {
+            case "find" -> List.of("filter", "sort", "projection", "skip", "limit", "hint");
+            case "aggregate" -> List.of("pipeline", "hint");
+            case "count" -> List.of("query", "skip", "limit", "hint");
+            case "distinct" -> List.of("key", "query");
+            case "findAndModify" -> List.of("query", "sort", "fields");
+            default -> List.of();
+        };
+        final BsonDocument statement = switch (commandName) {
+            case "update" -> firstStatement(command, "updates");
+            case "delete" -> firstStatement(command, "deletes");
+            default -> command;
+        };
+        if (statement == null || (fields.isEmpty() && statement == command)) {
+            return null;
+        }
+        final BsonDocument query = new BsonDocument(commandName, new BsonString(String.valueOf(collection)));
+        final List<String> copied = statement == command ? fields : List.of("q", "multi", "limit");
+        copied.forEach(field -> {
+            final BsonValue value = statement.get(field);
+            if (value != null) {
+                query.append(field, copyOf(value));
+            }
+        });
+        return query;
+    }
+
+    private static BsonValue copyOf(final BsonValue value) {
+        if (value.isDocument()) {
+            return value.asDocument().clone();
+        }
+        return value.isArray() ? value.asArray().clone() : value;
+    }
+
+    private static BsonDocument explainTarget(final String commandName, final StartedCommand started) {
+        final BsonDocument query = started.command();
+        if (!EXPLAINED_AS_FIND.contains(commandName)) {
+            return query;
+        }
+        // escritas são explicadas como o find equivalente: o planner escolhe o índice do mesmo jeito
+        // e assim o payload do update nunca precisa ser guardado
+        final BsonDocument find = new BsonDocument("find", new BsonString(String.valueOf(started.collection())))
+                .append("filter", query.getDocument(filterField(commandName), new BsonDocument()));
+        if (query.get("sort") instanceof BsonDocument sort) {
+            find.append("sort", sort);
+        }
+        final boolean multi = query.getBoolean("multi", BsonBoolean.FALSE).getValue()
+                || query.getNumber("limit", new BsonInt32(1)).intValue() == 0;
+        if (!multi) {
+            find.append("limit", new BsonInt32(1));
+        }
+        return find;
+    }
+
+    private static BsonDocument firstStatement(final BsonDocument command, final String statements) {
+        if (command.get(statements) instanceof BsonArray array && !array.isEmpty() && array.get(0).isDocument()) {
+            return array.get(0).asDocument();
+        }
+        return null;
+    }
+
+    private static String collectionOf(final String commandName, final BsonDocument command) {
+        final BsonValue value = command.get("getMore".equals(commandName) ? "collection" : commandName);
+        return value != null && value.isString() ? value.asString().getValue() : null;
+    }
+
+    private static Integer docsReturned(final CommandSucceededEvent event) {
+        final BsonDocument response = event.getResponse();
+        if (response.get("cursor") instanceof BsonDocument cursor) {
+            final BsonValue batch = cursor.containsKey("firstBatch") ? cursor.get("firstBatch") : cursor.get("nextBatch");
+            return batch != null && batch.isArray() ? batch.asArray().size() : null;
+        }
+        if ("findAndModify".equals(event.getCommandName())) {
+            final BsonValue value = response.get("value");
+            return value == null || value.isNull() ? 0 : 1;
+        }
+        final BsonValue n = response.get("n");
+        return n != null && n.isNumber() ? n.asNumber().intValue() : null;
+    }
+
+    private static String callerOf() {
+        return StackWalker.getInstance().walk(frames -> frames
+                .filter(frame -> frame.getClassName().startsWith("com.wishlist.")
+                        && !frame.getClassName().startsWith("com.wishlist.infra.")
+                        && !frame.getClassName().contains("$$"))
+                .findFirst()
+                .map(frame -> frame.getClassName().substring(frame.getClassName().lastIndexOf('.') + 1)
+                        + "." + enclosingMethodOf(frame.getMethodName()))
+                .orElse(null));
+    }
+
+    // lambdas (ex.: a consulta passada ao SingleFlight) compilam para lambda$<método que a declarou>$<n>
+    private static String enclosingMethodOf(final String methodName) {
+        if (!methodName.startsWith("lambda$")) {
+            return methodName;
+        }
+        final int end = methodName.lastIndexOf('$');
+        return end > "lambda$".length() ? methodName.substring("lambda$".length(), end) : methodName;
+    }
+
+    private static long longOf(final Object value) {
+        return value instanceof Number number ? number.longValue() : 0L;
+    }
+
+    private static ExecutorService defaultExplainExecutor() {
+        return new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(16), runnable -> {
+            final Thread thread = new Thread(runnable, "slow-query-explain");
+            thread.setDaemon(true);
+            return thread;
+        }, new ThreadPoolExecutor.DiscardPolicy());
+    }
+
+    record StartedCommand(String collection, BsonDocument command) {
+    }
+}
@@ -0,0 +1,20 @@
+package com.wishlist.infra.mongo;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SlowQueryReport {
+
+    private long thresholdMs;
+    private Map<String, Long> occurrencesByShape;
+    private List<SlowQuery> queries;
+    private Collection<SlowQueryPlan> plans;
+}
@@ -0,0 +1,42 @@
+package com.wishlist.infra.outbox;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.wishlist.domain.model.WishlistEvent;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+public class FileWishlistEventSink implements WishlistEventSink {
+
+    private final Path file;
+    private final ObjectMapper objectMapper;
+
+    public FileWishlistEventSink(final Path file, final ObjectMapper objectMapper) {
+        this.file = file;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public synchronized void publish(final List<WishlistEvent> batch) {
+        try {
+            if (file.getParent() != null) {
+                Files.createDirectories(file.getParent());
+            }
+            try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                for (WishlistEvent event : batch) {
+                    writer.write(objectMapper.writeValueAsString(event));
+                    writer.write('\n');
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.wishlist.infra.outbox;
+
+import com.wishlist.domain.model.WishlistEvent;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Destino em memória para desenvolvimento e testes. Sem consumidor o buffer não pode travar o relay,
+ * então ao encher os eventos mais antigos são descartados e contados em {@link #dropped()}.
+ */
+public class InMemoryWishlistEventSink implements WishlistEventSink {
+
+    private final Deque<WishlistEvent> queue = new ArrayDeque<>();
+    private final int capacity;
+    private long dropped;
+
+    public InMemoryWishlistEventSink(final int capacity) {
+        this.capacity = capacity;
+    }
+
+    @Override
+    public synchronized void publish(final List<WishlistEvent> batch) {
+        for (WishlistEvent event : batch) {
+            if (queue.size() >= capacity) {
+                queue.pollFirst();
+                dropped++;
+            }
+            queue.addLast(event);
+        }
+    }
+
+    public synchronized List<WishlistEvent> drain(final int max) {
+        final List<WishlistEvent> events = new ArrayList<>();
+        while (events.size() < max && !queue.isEmpty()) {
+            events.add(queue.pollFirst());
+        }
+        return events;
+    }
+
+    public synchronized int size() {
+        return queue.size();
+    }
+
+    public synchronized long dropped() {
+        return dropped;
+    }
+}
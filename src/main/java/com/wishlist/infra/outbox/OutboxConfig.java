@@ -0,0 +1,35 @@
+package com.wishlist.infra.outbox;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.mongodb.MongoDatabaseFactory;
+import org.springframework.data.mongodb.MongoTransactionManager;
+
+import java.nio.file.Path;
+
+@Configuration
+public class OutboxConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "wishlist.outbox.sink", havingValue = "file", matchIfMissing = true)
+    public WishlistEventSink fileWishlistEventSink(@Value("${wishlist.outbox.file:outbox/wishlist-events.jsonl}") final String file,
+                                                   final ObjectMapper objectMapper) {
+        return new FileWishlistEventSink(Path.of(file), objectMapper);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "wishlist.outbox.sink", havingValue = "memory")
+    public WishlistEventSink inMemoryWishlistEventSink(@Value("${wishlist.outbox.memory-capacity:10000}") final int capacity) {
+        return new InMemoryWishlistEventSink(capacity);
+    }
+
+    // transações exigem replica set; com o Mongo standalone do docker-compose o item e o evento são gravados em sequência
+    @Bean
+    @ConditionalOnProperty(name = "wishlist.outbox.transactional", havingValue = "true")
+    public MongoTransactionManager transactionManager(final MongoDatabaseFactory mongoDatabaseFactory) {
+        return new MongoTransactionManager(mongoDatabaseFactory);
+    }
+}
@@ -0,0 +1,14 @@
+package com.wishlist.infra.outbox;
+
+import com.wishlist.domain.model.WishlistEvent;
+
+import java.util.List;
+
+public interface WishlistEventSink {
+
+    /**
+     * Publica o lote na ordem recebida. Lançar exceção mantém o lote no outbox para nova tentativa,
+     * então o destino deve tolerar eventos repetidos (o id do evento serve para deduplicar).
+     */
+    void publish(List<WishlistEvent> batch);
+}
@@ -6,6 +6,8 @@ import org.springframework.data.mongodb.core.MongoOperations;
 import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Objects;
 
@@ -18,6 +20,9 @@ public class SequenceGeneratorService {
 
     private MongoOperations mongoOperations;
 
+    // fora da transação do chamador: o contador é um documento único e, dentro de transações concorrentes,
+    // o segundo findAndModify falharia na hora com WriteConflict
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public long generateSequence(String seqName) {
         DatabaseSequence counter = mongoOperations.findAndModify(Query.query(where("_id").is(seqName)),
                 new Update().inc("seq",1), options().returnNew(true).upsert(true),
@@ -0,0 +1,25 @@
+package com.wishlist.service;
+
+import com.wishlist.domain.model.ArchiveReport;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Slf4j
+@Component
+@AllArgsConstructor
+@ConditionalOnProperty(name = "wishlist.archive.enabled", havingValue = "true")
+public class WishlistArchiveJob {
+
+    private final WishlistArchiveService wishlistArchiveService;
+
+    @Scheduled(cron = "${wishlist.archive.cron:0 0 3 * * *}")
+    public void run() {
+        ArchiveReport report = wishlistArchiveService.archive();
+        log.info("Arquivamento concluído: {} itens em {} lotes, ~{} bytes de dados e ~{} bytes de índice liberados ({})",
+                report.getItemsArchived(), report.getBatches(),
+                report.getEstimatedDataBytesSaved(), report.getEstimatedIndexBytesSaved(), report.getNote());
+    }
+}
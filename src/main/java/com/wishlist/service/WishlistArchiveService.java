@@ -0,0 +1,154 @@
+package com.wishlist.service;
+
+import com.wishlist.domain.model.ArchiveReport;
+import com.wishlist.domain.model.WishlistItem;
+import com.wishlist.infra.exception.BadRequestException;
+import com.wishlist.infra.mongo.MongoIndexInitializer;
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+@Service
+@RequiredArgsConstructor
+public class WishlistArchiveService {
+
+    public static final String ARCHIVE_COLLECTION = "wishlistItemArchive";
+
+    private final MongoOperations mongoOperations;
+    private final MongoIndexInitializer mongoIndexInitializer;
+    private final AtomicBoolean running = new AtomicBoolean(false);
+
+    @Value("${wishlist.archive.max-age-days:365}")
+    private int maxAgeDays;
+
+    @Value("${wishlist.archive.batch-size:500}")
+    private int batchSize;
+
+    @Value("${wishlist.archive.pause-ms:200}")
+    private long pauseMillis;
+
+    public ArchiveReport archive() {
+        return archive(maxAgeDays);
+    }
+
+    public ArchiveReport archive(final int maxAgeDays) {
+        if (maxAgeDays < 1) {
+            throw new BadRequestException("A idade mínima para arquivamento é de 1 dia");
+        }
+        if (!running.compareAndSet(false, true)) {
+            throw new BadRequestException("Arquivamento já está em execução");
+        }
+        try {
+            final LocalDate cutoff = LocalDate.now().minusDays(maxAgeDays);
+            final String hotCollection = mongoOperations.getCollectionName(WishlistItem.class);
+            mongoIndexInitializer.ensureArchiveCollection();
+
+            final Document stats = collectionStats(hotCollection);
+            long itemsArchived = 0;
+            int batches = 0;
+            List<WishlistItem> batch = nextBatch(cutoff);
+            while (!batch.isEmpty()) {
+                itemsArchived += moveToArchive(batch);
+                batches++;
+                if (batch.size() < batchSize || !pause()) {
+                    break;
+                }
+                batch = nextBatch(cutoff);
+            }
+
+            // o delta de size/totalIndexSize não serve: o WiredTiger reaproveita o espaço mas não encolhe o arquivo
+            final long count = sizeOf(stats, "count");
+            final long dataBytes = itemsArchived * sizeOf(stats, "avgObjSize");
+            final long indexBytes = count == 0 ? 0 : itemsArchived * sizeOf(stats, "totalIndexSize") / count;
+            return new ArchiveReport(cutoff, itemsArchived, batches, dataBytes, indexBytes, ArchiveReport.SPACE_NOTE);
+        } finally {
+            running.set(false);
+        }
+    }
+
+    public <T> List<T> findArchivedItemsByClientId(final Integer clientId, final Class<T> type) {
+        return mongoOperations.query(WishlistItem.class)
+                .inCollection(ARCHIVE_COLLECTION)
+                .as(type)
+                .matching(query(where("clientId").is(clientId)))
+                .all();
+    }
+
+    public WishlistItem deleteArchivedItemById(final Long id) {
+        return mongoOperations.findAndRemove(query(where("_id").is(id)), WishlistItem.class, ARCHIVE_COLLECTION);
+    }
+
+    public void deleteAllArchivedItems() {
+        mongoOperations.remove(new Query(), ARCHIVE_COLLECTION);
+    }
+
+    private List<WishlistItem> nextBatch(final LocalDate cutoff) {
+        final Query query = query(where("date").lt(cutoff))
+                .with(Sort.by(Sort.Direction.ASC, "date"))
+                .limit(batchSize);
+        return mongoOperations.find(query, WishlistItem.class);
+    }
+
+    /**
+     * Copia o lote para o arquivo e só então o remove da coleção quente, devolvendo quantos itens foram movidos.
+     * <p>
+     * Um item apagado pelo usuário entre a leitura do lote e o upsert voltaria pelo arquivo (e ainda contaria no limite
+     * e na checagem de produto repetido). Por isso, depois do upsert, os ids que já não estão na coleção quente saem
+     * também do arquivo; quem apagar depois dessa leitura já encontra a cópia arquivada e a remove.
+     */
+    private int moveToArchive(final List<WishlistItem> batch) {
+        final BulkOperations bulk = mongoOperations.bulkOps(BulkOperations.BulkMode.UNORDERED,
+                WishlistItem.class, ARCHIVE_COLLECTION);
+        // upsert por _id deixa o lote idempotente caso a remoção abaixo falhe e o lote seja reprocessado
+        batch.forEach(item -> bulk.replaceOne(query(where("_id").is(item.getId())), item,
+                FindAndReplaceOptions.options().upsert()));
+        bulk.execute();
+
+        final List<Long> ids = batch.stream().map(WishlistItem::getId).toList();
+        final Set<Long> stillHot = new HashSet<>(mongoOperations.findDistinct(query(where("_id").in(ids)), "_id",
+                WishlistItem.class, Long.class));
+        final List<Long> deleted = ids.stream().filter(id -> !stillHot.contains(id)).toList();
+        if (!deleted.isEmpty()) {
+            mongoOperations.remove(query(where("_id").in(deleted)), ARCHIVE_COLLECTION);
+        }
+        mongoOperations.remove(query(where("_id").in(ids)), WishlistItem.class);
+        return stillHot.size();
+    }
+
+    private boolean pause() {
+        if (pauseMillis <= 0) {
+            return true;
+        }
+        try {
+            Thread.sleep(pauseMillis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private Document collectionStats(final String collection) {
+        return mongoOperations.executeCommand(new Document("collStats", collection));
+    }
+
+    private static long sizeOf(final Document stats, final String field) {
+        final Object value = stats == null ? null : stats.get(field);
+        return value instanceof Number number ? number.longValue() : 0L;
+    }
+}
@@ -0,0 +1,145 @@
+package com.wishlist.service;
+
+import com.wishlist.domain.model.ClientWishlist;
+import com.wishlist.domain.model.WishlistItem;
+import com.wishlist.domain.repository.WishlistRepository;
+import com.wishlist.infra.exception.BadRequestException;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+@Service
+public class WishlistBatchService {
+
+    private final WishlistRepository wishlistRepository;
+    private final ExecutorService executor;
+    private final int chunkSize;
+    private final int maxClients;
+    private final int parallelism;
+
+    public WishlistBatchService(final WishlistRepository wishlistRepository,
+                                @Value("${wishlist.batch.chunk-size:500}") final int chunkSize,
+                                @Value("${wishlist.batch.max-clients:10000}") final int maxClients,
+                                @Value("${wishlist.batch.parallelism:4}") final int parallelism) {
+        this.wishlistRepository = wishlistRepository;
+        this.chunkSize = chunkSize;
+        this.maxClients = maxClients;
+        this.parallelism = parallelism;
+        this.executor = Executors.newFixedThreadPool(parallelism);
+    }
+
+    /**
+     * Consulta os lotes com $in mantendo no máximo {@code parallelism} lotes em andamento: o próximo só é disparado
+     * quando um resultado é consumido, então a memória fica limitada pela velocidade de escrita da resposta.
+     * As wishlists saem na ordem dos clientIds informados; cliente sem itens volta com lista vazia.
+     * Fechar o stream cancela os lotes pendentes.
+     */
+    public Stream<ClientWishlist> getWishlistsByClientIds(final List<Integer> clientIds) {
+        if (clientIds == null || clientIds.isEmpty()) {
+            throw new BadRequestException("Informe ao menos um clientId");
+        }
+        final List<Integer> distinctIds = new ArrayList<>(new LinkedHashSet<>(clientIds));
+        if (distinctIds.contains(null)) {
+            throw new BadRequestException("clientId não pode ser nulo");
+        }
+        if (distinctIds.size() > maxClients) {
+            throw new BadRequestException("Máximo de " + maxClients + " clientes por requisição");
+        }
+
+        final List<List<Integer>> chunks = new ArrayList<>();
+        for (int start = 0; start < distinctIds.size(); start += chunkSize) {
+            chunks.add(distinctIds.subList(start, Math.min(start + chunkSize, distinctIds.size())));
+        }
+        final ChunkLoader loader = new ChunkLoader(chunks);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(loader, Spliterator.ORDERED), false)
+                .flatMap(List::stream)
+                .onClose(loader::cancel);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private List<ClientWishlist> loadChunk(final List<Integer> chunk) {
+        final Map<Integer, List<WishlistItem>> itensByClient = wishlistRepository.findWishlistItemByClientIdIn(chunk)
+                .stream()
+                .collect(Collectors.groupingBy(WishlistItem::getClientId));
+        return chunk.stream()
+                .map(clientId -> new ClientWishlist(clientId, itensByClient.getOrDefault(clientId, List.of())))
+                .toList();
+    }
+
+    private static <T> T join(final CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+
+    private final class ChunkLoader implements Iterator<List<ClientWishlist>> {
+
+        private final Iterator<List<Integer>> remaining;
+        private final Deque<CompletableFuture<List<ClientWishlist>>> pending = new ConcurrentLinkedDeque<>();
+        private volatile boolean cancelled;
+
+        private ChunkLoader(final List<List<Integer>> chunks) {
+            this.remaining = chunks.iterator();
+        }
+
+        @Override
+        public boolean hasNext() {
+            submitUpToParallelism();
+            return !pending.isEmpty();
+        }
+
+        @Override
+        public List<ClientWishlist> next() {
+            submitUpToParallelism();
+            final CompletableFuture<List<ClientWishlist>> head = pending.poll();
+            if (head == null) {
+                throw new NoSuchElementException();
+            }
+            try {
+                return join(head);
+            } catch (RuntimeException e) {
+                cancel();
+                throw e;
+            }
+        }
+
+        private void submitUpToParallelism() {
+            while (!cancelled && pending.size() < parallelism && remaining.hasNext()) {
+                final List<Integer> chunk = remaining.next();
+                pending.add(CompletableFuture.supplyAsync(() -> loadChunk(chunk), executor));
+            }
+        }
+
+        private void cancel() {
+            cancelled = true;
+            CompletableFuture<List<ClientWishlist>> future;
+            while ((future = pending.poll()) != null) {
+                future.cancel(true);
+            }
+        }
+    }
+}
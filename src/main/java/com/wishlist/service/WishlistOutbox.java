@@ -0,0 +1,29 @@
+package com.wishlist.service;
+
+import com.wishlist.domain.model.WishlistEvent;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+public class WishlistOutbox {
+
+    private final MongoOperations mongoOperations;
+    private final SequenceGeneratorService sequenceGeneratorService;
+
+    @Value("${wishlist.outbox.enabled:false}")
+    private boolean enabled;
+
+    /**
+     * A sequência do evento é tirada do contador do outbox no momento da gravação, logo antes do insert: a ordem de
+     * publicação segue a ordem em que os eventos foram escritos, e não a ordem em que os ids dos itens foram gerados.
+     */
+    public void record(final WishlistEvent event) {
+        if (enabled) {
+            event.setSequence(sequenceGeneratorService.generateSequence(WishlistEvent.SEQUENCE_NAME));
+            mongoOperations.insert(event);
+        }
+    }
+}
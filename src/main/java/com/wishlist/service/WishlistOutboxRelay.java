@@ -0,0 +1,125 @@
+package com.wishlist.service;
+
+import com.wishlist.domain.model.OutboxMetrics;
+import com.wishlist.domain.model.OutboxRelayLease;
+import com.wishlist.domain.model.WishlistEvent;
+import com.wishlist.infra.outbox.WishlistEventSink;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.springframework.data.mongodb.core.FindAndModifyOptions.options;
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class WishlistOutboxRelay {
+
+    private final MongoOperations mongoOperations;
+    private final WishlistEventSink wishlistEventSink;
+
+    private final String owner = UUID.randomUUID().toString();
+    private final AtomicLong published = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicLong publishNanos = new AtomicLong();
+    private volatile int lastBatchSize;
+    private volatile long lastBatchMillis;
+
+    @Value("${wishlist.outbox.enabled:false}")
+    private boolean enabled;
+
+    @Value("${wishlist.outbox.relay.batch-size:500}")
+    private int batchSize;
+
+    @Value("${wishlist.outbox.relay.lease-ms:30000}")
+    private long leaseMillis;
+
+    @Scheduled(fixedDelayString = "${wishlist.outbox.relay.interval-ms:1000}")
+    public void relay() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            int relayed;
+            do {
+                if (!claimLease()) {
+                    return;
+                }
+                relayed = relayBatch();
+            } while (relayed == batchSize && !Thread.currentThread().isInterrupted());
+        } catch (RuntimeException e) {
+            failures.incrementAndGet();
+            log.warn("Falha ao publicar eventos do outbox, o lote será reenviado: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Só uma instância publica por vez: o lease é um documento único que a instância assume quando está livre ou
+     * expirado, e renova antes de cada lote. Quem perde o lease para na hora e as outras só assumem depois de
+     * {@code lease-ms} sem renovação, por isso o valor precisa ser bem maior que o tempo de publicar um lote
+     * (e que a diferença entre os relógios das instâncias).
+     */
+    boolean claimLease() {
+        final Instant now = Instant.now();
+        final Query free = query(where("_id").is(OutboxRelayLease.RELAY)
+                .orOperator(where("owner").is(owner), where("expiresAt").lt(now)));
+        final Update claim = new Update().set("owner", owner).set("expiresAt", now.plusMillis(leaseMillis));
+        try {
+            return mongoOperations.findAndModify(free, claim, options().returnNew(true).upsert(true),
+                    OutboxRelayLease.class) != null;
+        } catch (DuplicateKeyException e) {
+            // lease válido de outra instância: o upsert tentou criar o documento que já existe
+            return false;
+        }
+    }
+
+    /**
+     * Publica os eventos pendentes em ordem de sequência e só então os remove do outbox. Se o processo
+     * cair entre a publicação e a remoção, o lote é reenviado (entrega at-least-once).
+     */
+    int relayBatch() {
+        final Query pending = new Query()
+                .with(Sort.by(Sort.Direction.ASC, "sequence"))
+                .limit(batchSize);
+        final List<WishlistEvent> batch = mongoOperations.find(pending, WishlistEvent.class);
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        final long start = System.nanoTime();
+        wishlistEventSink.publish(batch);
+        final List<ObjectId> ids = batch.stream().map(WishlistEvent::getId).toList();
+        mongoOperations.remove(query(where("_id").in(ids)), WishlistEvent.class);
+        final long elapsed = System.nanoTime() - start;
+
+        published.addAndGet(batch.size());
+        batches.incrementAndGet();
+        publishNanos.addAndGet(elapsed);
+        lastBatchSize = batch.size();
+        lastBatchMillis = TimeUnit.NANOSECONDS.toMillis(elapsed);
+        return batch.size();
+    }
+
+    public OutboxMetrics metrics() {
+        final long nanos = publishNanos.get();
+        final double eventsPerSecond = nanos == 0 ? 0 : published.get() / (nanos / 1_000_000_000d);
+        return new OutboxMetrics(mongoOperations.count(new Query(), WishlistEvent.class), published.get(),
+                batches.get(), failures.get(), lastBatchSize, lastBatchMillis, eventsPerSecond);
+    }
+}
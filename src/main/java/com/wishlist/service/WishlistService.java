@@ -1,34 +1,58 @@
 package com.wishlist.service;
 
 import com.wishlist.domain.model.Wishlist;
+import com.wishlist.domain.model.WishlistEvent;
+import com.wishlist.domain.model.WishlistEventType;
 import com.wishlist.domain.model.WishlistItem;
+import com.wishlist.domain.model.WishlistItemIds;
 import com.wishlist.domain.repository.WishlistRepository;
+import com.wishlist.infra.concurrent.SingleFlight;
 import com.wishlist.infra.exception.BadRequestException;
 import com.wishlist.infra.exception.NotFoundException;
 import lombok.AllArgsConstructor;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
+import java.util.function.Supplier;
 
 @Service
 @AllArgsConstructor
 public class WishlistService {
 
+    private static final int MAX_COALESCED_READS = 1024;
+
+    private final SingleFlight<ReadKey, List<?>> reads = new SingleFlight<>(MAX_COALESCED_READS);
     private final WishlistRepository wishlistRepository;
     private final SequenceGeneratorService sequenceGeneratorService;
+    private final WishlistArchiveService wishlistArchiveService;
+    private final WishlistOutbox wishlistOutbox;
 
     public WishlistItem getWishlistItemById(final Long id) {
-        return wishlistRepository.findById(id)
+        return getWishlistItemById(id, WishlistItem.class);
+    }
+
+    public <T> T getWishlistItemById(final Long id, final Class<T> type) {
+        return wishlistRepository.findWishlistItemById(id, type)
                 .orElseThrow(() -> new NotFoundException("Item não encontrado"));
     }
 
+    @Transactional
     public void addWishlist(final Wishlist wishlist){
         wishlist.getItens().forEach(this::addWishlistItem);
     }
 
+    @Transactional
     public WishlistItem addWishlistItem(WishlistItem wishlistItem){
-        final List<WishlistItem> wishlist = wishlistRepository.findWishlistItemByClientId(wishlistItem.getClientId());
+        // itens arquivados continuam na wishlist, então contam no limite e na checagem de duplicidade
+        final List<WishlistItemIds> wishlist = new ArrayList<>(
+                wishlistRepository.findWishlistItemByClientId(wishlistItem.getClientId(), WishlistItemIds.class));
+        wishlist.addAll(wishlistArchiveService.findArchivedItemsByClientId(wishlistItem.getClientId(), WishlistItemIds.class));
         if (wishlist.size() >= 20) {
             throw new BadRequestException("Cliente já possui 20 itens em sua wishlist");
         }
@@ -39,32 +63,78 @@ public class WishlistService {
             throw new BadRequestException("Cliente já possui esse item em sua wishlist");
         }
         wishlistItem.setId(sequenceGeneratorService.generateSequence(WishlistItem.SEQUENCE_NAME));
-        return wishlistRepository.save(wishlistItem);
+        final WishlistItem saved = wishlistRepository.save(wishlistItem);
+        wishlistOutbox.record(WishlistEvent.of(WishlistEventType.ADDED, saved));
+        afterWrite(() -> reads.invalidate(key -> Objects.equals(key.clientId(), saved.getClientId())));
+        return saved;
     }
 
-    public Wishlist getWishlistByClientId(final Integer clientId){
-        final List<WishlistItem> wishlistItens = wishlistRepository.findWishlistItemByClientId(clientId);
+    public <T> List<T> getWishlistItensByClientId(final Integer clientId, final boolean includeArchived, final Class<T> type){
+        List<T> wishlistItens = coalesce(new ReadKey(clientId, null, type),
+                () -> wishlistRepository.findWishlistItemByClientId(clientId, type));
+        if (includeArchived) {
+            wishlistItens = new ArrayList<>(wishlistItens);
+            wishlistItens.addAll(wishlistArchiveService.findArchivedItemsByClientId(clientId, type));
+        }
         if (wishlistItens.isEmpty()) {
             throw new NotFoundException("Cliente não possui itens em sua wishlist");
         }
-        Wishlist wishlist = new Wishlist();
-        wishlist.setItens(wishlistItens);
-        return wishlist;
+        return wishlistItens;
     }
 
     public WishlistItem getWishlistByClientIdAndProductId(final Integer clientId, final Integer productId) {
-        final List<WishlistItem> wishlistItens = wishlistRepository.findWishlistItemByClientIdAndProductId(clientId, productId);
+        return getWishlistByClientIdAndProductId(clientId, productId, WishlistItem.class);
+    }
+
+    public <T> T getWishlistByClientIdAndProductId(final Integer clientId, final Integer productId, final Class<T> type) {
+        final List<T> wishlistItens = coalesce(new ReadKey(clientId, productId, type),
+                () -> wishlistRepository.findWishlistItemByClientIdAndProductId(clientId, productId, type));
         if (wishlistItens.isEmpty()) {
             throw new NotFoundException("Cliente não possui esse item em sua wishlist");
         }
         return wishlistItens.get(0);
     }
 
+    @Transactional
     public void deleteWishlistItemById(final Long id) {
-        wishlistRepository.deleteById(id);
+        // remove das duas coleções: um lote de arquivamento interrompido pode deixar o item em ambas
+        final WishlistItem hot = wishlistRepository.deleteWishlistItemById(id);
+        final WishlistItem archived = wishlistArchiveService.deleteArchivedItemById(id);
+        final WishlistItem deleted = hot != null ? hot : archived;
+        if (deleted != null) {
+            wishlistOutbox.record(WishlistEvent.of(WishlistEventType.DELETED, deleted));
+            afterWrite(() -> reads.invalidate(key -> Objects.equals(key.clientId(), deleted.getClientId())));
+        }
     }
 
+    @Transactional
     public void deleteWishlist() {
         wishlistRepository.deleteAll();
+        wishlistArchiveService.deleteAllArchivedItems();
+        wishlistOutbox.record(WishlistEvent.purged());
+        afterWrite(reads::invalidateAll);
+    }
+
+    private void afterWrite(final Runnable invalidation) {
+        // dentro de transação a invalidação espera o commit, senão leitores novos poderiam ver o estado anterior
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidation.run();
+                }
+            });
+        } else {
+            invalidation.run();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> List<T> coalesce(final ReadKey key, final Supplier<List<T>> query) {
+        // a mesma lista é entregue a todos os chamadores do grupo, por isso vai imutável
+        return (List<T>) reads.execute(key, () -> Collections.unmodifiableList(query.get()));
+    }
+
+    private record ReadKey(Integer clientId, Integer productId, Class<?> type) {
     }
 }
\ No newline at end of file
@@ -0,0 +1,114 @@
+package com.wishlist.controller;
+
+import com.wishlist.domain.model.ArchiveReport;
+import com.wishlist.domain.model.OutboxMetrics;
+import com.wishlist.infra.exception.BadRequestException;
+import com.wishlist.infra.exception.RestExceptionHandler;
+import com.wishlist.infra.mongo.SlowQuery;
+import com.wishlist.infra.mongo.SlowQueryRecorder;
+import com.wishlist.infra.mongo.SlowQueryReport;
+import com.wishlist.service.WishlistArchiveService;
+import com.wishlist.service.WishlistOutboxRelay;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@ExtendWith(MockitoExtension.class)
+class AdminControllerTest {
+
+    private MockMvc mockMvc;
+
+    @Mock
+    private SlowQueryRecorder slowQueryRecorder;
+
+    @Mock
+    private WishlistOutboxRelay wishlistOutboxRelay;
+
+    @Mock
+    private WishlistArchiveService wishlistArchiveService;
+
+    @InjectMocks
+    private AdminController adminController;
+
+    @BeforeEach
+    void setup() {
+        mockMvc = MockMvcBuilders.standaloneSetup(adminController)
+                .setControllerAdvice(new RestExceptionHandler())
+                .build();
+    }
+
+    @Test
+    void getSlowQueries_returnsReport() throws Exception {
+        SlowQuery slowQuery = new SlowQuery();
+        slowQuery.setShape("find wishlistItem {\"clientId\": \"?\"}");
+        slowQuery.setCaller("WishlistService.getWishlistItensByClientId");
+        slowQuery.setDurationMs(250);
+        when(slowQueryRecorder.report()).thenReturn(new SlowQueryReport(100,
+                Map.of(slowQuery.getShape(), 1L), List.of(slowQuery), List.of()));
+
+        mockMvc.perform(get("/admin/slow-queries"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.thresholdMs").value(100))
+                .andExpect(jsonPath("$.queries[0].caller").value("WishlistService.getWishlistItensByClientId"))
+                .andExpect(jsonPath("$.queries[0].durationMs").value(250));
+    }
+
+    @Test
+    void clearSlowQueries_returnsSuccessMessage() throws Exception {
+        mockMvc.perform(delete("/admin/slow-queries"))
+                .andExpect(status().isOk())
+                .andExpect(content().string("Registro de consultas lentas limpo com sucesso"));
+
+        verify(slowQueryRecorder).clear();
+    }
+
+    @Test
+    void getOutboxMetrics_returnsRelayMetrics() throws Exception {
+        when(wishlistOutboxRelay.metrics()).thenReturn(new OutboxMetrics(5, 1200, 3, 0, 200, 12, 25000.0));
+
+        mockMvc.perform(get("/admin/outbox"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.pending").value(5))
+                .andExpect(jsonPath("$.published").value(1200))
+                .andExpect(jsonPath("$.eventsPerSecond").value(25000.0));
+    }
+
+    @Test
+    void archive_returnsReport() throws Exception {
+        ArchiveReport report = new ArchiveReport(LocalDate.of(2023, 1, 1), 3, 1, 360, 240, ArchiveReport.SPACE_NOTE);
+        when(wishlistArchiveService.archive(30)).thenReturn(report);
+
+        mockMvc.perform(post("/admin/archive").param("maxAgeDays", "30"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.itemsArchived").value(3))
+                .andExpect(jsonPath("$.estimatedDataBytesSaved").value(360))
+                .andExpect(jsonPath("$.estimatedIndexBytesSaved").value(240))
+                .andExpect(jsonPath("$.note").value(ArchiveReport.SPACE_NOTE));
+
+        verify(wishlistArchiveService).archive(30);
+    }
+
+    @Test
+    void archive_whenAlreadyRunning_returnsBadRequest() throws Exception {
+        when(wishlistArchiveService.archive()).thenThrow(new BadRequestException("Arquivamento já está em execução"));
+
+        mockMvc.perform(post("/admin/archive"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Arquivamento já está em execução"));
+    }
+}
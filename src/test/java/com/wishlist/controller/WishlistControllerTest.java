@@ -2,25 +2,35 @@ package com.wishlist.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.wishlist.infra.exception.RestExceptionHandler;
+import com.wishlist.domain.model.ClientWishlist;
 import com.wishlist.domain.model.Wishlist;
 import com.wishlist.domain.model.WishlistItem;
+import com.wishlist.domain.model.WishlistItemIds;
+import com.wishlist.domain.model.WishlistItemSummary;
 import com.wishlist.infra.exception.NotFoundException;
+import com.wishlist.service.WishlistBatchService;
+import com.wishlist.infra.exception.BadRequestException;
 import com.wishlist.service.WishlistService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.MediaType;
+import org.springframework.test.json.JsonCompareMode;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.stream.Stream;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
@@ -34,6 +44,12 @@ class WishlistControllerTest {
     @Mock
     private WishlistService wishlistService;
 
+    @Mock
+    private WishlistBatchService wishlistBatchService;
+
+    @Spy
+    private ObjectMapper jsonMapper = new ObjectMapper().findAndRegisterModules();
+
     @InjectMocks
     private WishlistController wishlistController;
 
@@ -68,37 +84,78 @@ class WishlistControllerTest {
     @Test
     void getWishlistItemById_returnsItem() throws Exception {
         WishlistItem it = sampleItem();
-        when(wishlistService.getWishlistItemById(1L)).thenReturn(it);
+        when(wishlistService.getWishlistItemById(1L, WishlistItem.class)).thenReturn(it);
 
         mockMvc.perform(get("/wishlist/{id}", 1L))
                 .andExpect(status().isOk())
                 .andExpect(content().json(objectMapper.writeValueAsString(it)));
 
-        verify(wishlistService).getWishlistItemById(1L);
+        verify(wishlistService).getWishlistItemById(1L, WishlistItem.class);
     }
 
     @Test
     void getWishlistbyClientId_returnsWishlist() throws Exception {
         Wishlist w = sampleWishlist();
-        when(wishlistService.getWishlistByClientId(10)).thenReturn(w);
+        doReturn(w.getItens()).when(wishlistService).getWishlistItensByClientId(10, false, WishlistItem.class);
 
         mockMvc.perform(get("/wishlist/client/{clientId}", 10))
                 .andExpect(status().isOk())
                 .andExpect(content().json(objectMapper.writeValueAsString(w)));
 
-        verify(wishlistService).getWishlistByClientId(10);
+        verify(wishlistService).getWishlistItensByClientId(10, false, WishlistItem.class);
+    }
+
+    @Test
+    void getWishlistbyClientId_withIncludeArchived_mergesTiers() throws Exception {
+        Wishlist w = sampleWishlist();
+        doReturn(w.getItens()).when(wishlistService).getWishlistItensByClientId(10, true, WishlistItem.class);
+
+        mockMvc.perform(get("/wishlist/client/{clientId}", 10).param("includeArchived", "true"))
+                .andExpect(status().isOk())
+                .andExpect(content().json(objectMapper.writeValueAsString(w)));
+
+        verify(wishlistService).getWishlistItensByClientId(10, true, WishlistItem.class);
+    }
+
+    @Test
+    void getWishlistbyClientId_withIdsView_returnsOnlyIds() throws Exception {
+        doReturn(List.of(new WishlistItemIds(1L, 100)))
+                .when(wishlistService).getWishlistItensByClientId(10, false, WishlistItemIds.class);
+
+        mockMvc.perform(get("/wishlist/client/{clientId}", 10).param("view", "ids"))
+                .andExpect(status().isOk())
+                .andExpect(content().json("{\"itens\":[{\"id\":1,\"productId\":100}]}", JsonCompareMode.STRICT));
+    }
+
+    @Test
+    void getWishlistbyClientId_withUnknownView_returns400() throws Exception {
+        mockMvc.perform(get("/wishlist/client/{clientId}", 10).param("view", "everything"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("View inválida: everything. Use ids, summary ou full"));
+
+        verifyNoInteractions(wishlistService);
     }
 
     @Test
     void getWishlistByClientIdAndProductId_returnsItem() throws Exception {
         WishlistItem it = sampleItem();
-        when(wishlistService.getWishlistByClientIdAndProductId(10, 100)).thenReturn(it);
+        when(wishlistService.getWishlistByClientIdAndProductId(10, 100, WishlistItem.class)).thenReturn(it);
 
         mockMvc.perform(get("/wishlist/client/{clientId}/product/{productId}", 10, 100))
                 .andExpect(status().isOk())
                 .andExpect(content().json(objectMapper.writeValueAsString(it)));
 
-        verify(wishlistService).getWishlistByClientIdAndProductId(10, 100);
+        verify(wishlistService).getWishlistByClientIdAndProductId(10, 100, WishlistItem.class);
+    }
+
+    @Test
+    void getWishlistByClientIdAndProductId_withSummaryView_returnsSummary() throws Exception {
+        WishlistItemSummary summary = new WishlistItemSummary(1L, 10, 100, "Produto X");
+        when(wishlistService.getWishlistByClientIdAndProductId(10, 100, WishlistItemSummary.class)).thenReturn(summary);
+
+        mockMvc.perform(get("/wishlist/client/{clientId}/product/{productId}", 10, 100).param("view", "summary"))
+                .andExpect(status().isOk())
+                .andExpect(content().json(objectMapper.writeValueAsString(summary), JsonCompareMode.STRICT));
     }
 
     @Test
@@ -155,13 +212,43 @@ class WishlistControllerTest {
 
     @Test
     void getWishlistItemById_whenNotFound_serviceThrowsNotFoundException_mapsTo404() throws Exception {
-        when(wishlistService.getWishlistItemById(999L)).thenThrow(new NotFoundException("Item não encontrado"));
+        when(wishlistService.getWishlistItemById(999L, WishlistItem.class)).thenThrow(new NotFoundException("Item não encontrado"));
 
         mockMvc.perform(get("/wishlist/{id}", 999L))
                 .andExpect(status().isNotFound())
                 .andExpect(jsonPath("$.status").value(404))
                 .andExpect(jsonPath("$.message").value("Item não encontrado"));
 
-        verify(wishlistService).getWishlistItemById(999L);
+        verify(wishlistService).getWishlistItemById(999L, WishlistItem.class);
+    }
+
+    @Test
+    void getWishlistsByClientIds_streamsOneEntryPerClient() throws Exception {
+        WishlistItem it = sampleItem();
+        when(wishlistBatchService.getWishlistsByClientIds(List.of(10, 20)))
+                .thenReturn(Stream.of(new ClientWishlist(10, List.of(it)), new ClientWishlist(20, List.of())));
+
+        MvcResult result = mockMvc.perform(post("/wishlist/clients")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[10, 20]"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().json(objectMapper.writeValueAsString(List.of(
+                        new ClientWishlist(10, List.of(it)), new ClientWishlist(20, List.of())))));
+    }
+
+    @Test
+    void getWishlistsByClientIds_whenInvalid_mapsTo400() throws Exception {
+        when(wishlistBatchService.getWishlistsByClientIds(List.of()))
+                .thenThrow(new BadRequestException("Informe ao menos um clientId"));
+
+        mockMvc.perform(post("/wishlist/clients")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[]"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Informe ao menos um clientId"));
     }
 }
@@ -0,0 +1,405 @@
+package com.wishlist.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import com.mongodb.event.CommandSucceededEvent;
+import com.wishlist.domain.model.Wishlist;
+import com.wishlist.domain.model.WishlistEvent;
+import com.wishlist.domain.model.WishlistItem;
+import com.wishlist.infra.mongo.MongoIndexInitializer;
+import com.wishlist.service.WishlistArchiveService;
+import de.bwaldvogel.mongo.MongoServer;
+import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.BsonArray;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.BsonDocumentCodec;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+
+import java.net.InetSocketAddress;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Orçamento de round-trips por endpoint: cada requisição passa pela aplicação inteira contra um Mongo em memória
+ * e os comandos enviados pelo driver são contados. O teste quebra quando uma mudança adiciona consultas, aumenta o
+ * tráfego além do declarado ou faz uma consulta de caminho quente deixar de usar índice.
+ * <p>
+ * O servidor em memória não implementa explain, então "sem COLLSCAN" é verificado pelo filtro de cada comando:
+ * algum campo do filtro precisa ser o primeiro campo de um índice da coleção (ou o _id).
+ */
+@SpringBootTest(properties = {
+        "wishlist.slow-query.enabled=false",
+        "wishlist.batch.chunk-size=500"
+})
+@AutoConfigureMockMvc
+@Import(WishlistRoundTripBudgetTest.RecorderConfig.class)
+@Slf4j
+class WishlistRoundTripBudgetTest {
+
+    private static final int CLIENT_ID = 10;
+    private static final int ITEMS_PER_CLIENT = 5;
+    private static final int BATCH_CLIENTS = 1200;
+
+    private static final Budget GET_ITEM = new Budget("GET /wishlist/{id}",
+            Map.of("find", 1), 500, false);
+    private static final Budget GET_CLIENT = new Budget("GET /wishlist/client/{clientId}",
+            Map.of("find", 1), 1_500, false);
+    private static final Budget GET_CLIENT_IDS = new Budget("GET /wishlist/client/{clientId}?view=ids",
+            Map.of("find", 1), 600, false);
+    private static final Budget GET_CLIENT_PRODUCT = new Budget("GET /wishlist/client/{clientId}/product/{productId}",
+            Map.of("find", 1), 500, false);
+    // um find por lote; o getMore cobre o Mongo real, que devolve o primeiro lote do cursor com no máximo 101 documentos
+    private static final Budget GET_CLIENTS = new Budget("POST /wishlist/clients (1200 clientes, lotes de 500)",
+            Map.of("find", 3, "getMore", 3), 550_000, false);
+    // escritas consultam/removem também a coleção fria, que ainda faz parte da wishlist
+    private static final Budget ADD_ITEM = new Budget("POST /wishlist/add_item",
+            Map.of("find", 2, "findAndModify", 1, "update", 1), 1_500, false);
+    private static final Budget ADD_LIST = new Budget("POST /wishlist/add_list (3 itens)",
+            Map.of("find", 6, "findAndModify", 3, "update", 3), 4_100, false);
+    private static final Budget DELETE_ITEM = new Budget("DELETE /wishlist/delete/{id}",
+            Map.of("findAndModify", 2), 600, false);
+    // limpeza total é varredura por definição; fica fora do caminho quente, mas o número de comandos continua travado
+    private static final Budget DELETE_ALL = new Budget("DELETE /wishlist/delete",
+            Map.of("delete", 2), 350, true);
+
+    // com o outbox ligado cada evento custa um findAndModify no contador do outbox + o insert do evento
+    private static final Budget ADD_ITEM_OUTBOX = new Budget("POST /wishlist/add_item (outbox)",
+            Map.of("find", 2, "findAndModify", 2, "update", 1, "insert", 1), 2_200, false);
+    private static final Budget ADD_LIST_OUTBOX = new Budget("POST /wishlist/add_list (3 itens, outbox)",
+            Map.of("find", 6, "findAndModify", 6, "update", 3, "insert", 3), 6_300, false);
+    private static final Budget DELETE_ITEM_OUTBOX = new Budget("DELETE /wishlist/delete/{id} (outbox)",
+            Map.of("findAndModify", 3, "insert", 1), 1_300, false);
+    private static final Budget DELETE_ALL_OUTBOX = new Budget("DELETE /wishlist/delete (outbox)",
+            Map.of("delete", 2, "findAndModify", 1, "insert", 1), 1_000, true);
+
+    private static final Set<String> IGNORED_COMMANDS = Set.of("endSessions");
+    // relay agendado e criação assíncrona de índices no startup não fazem parte da requisição medida
+    private static final List<String> BACKGROUND_THREADS = List.of("scheduling-", "ForkJoinPool.commonPool-");
+
+    private static final MongoServer SERVER = new MongoServer(new MemoryBackend());
+    private static final CommandRecorder RECORDER = new CommandRecorder();
+
+    @DynamicPropertySource
+    static void mongoProperties(DynamicPropertyRegistry registry) {
+        InetSocketAddress address = SERVER.bind();
+        registry.add("spring.data.mongodb.uri",
+                () -> "mongodb://" + address.getHostString() + ":" + address.getPort() + "/wishlist");
+    }
+
+    @TestConfiguration
+    static class RecorderConfig {
+        @Bean
+        MongoClientSettingsBuilderCustomizer roundTripRecorderCustomizer() {
+            return settings -> settings.addCommandListener(RECORDER);
+        }
+    }
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private MongoIndexInitializer mongoIndexInitializer;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @BeforeEach
+    void setUp() {
+        mongoTemplate.dropCollection(WishlistItem.class);
+        mongoTemplate.dropCollection(WishlistArchiveService.ARCHIVE_COLLECTION);
+        mongoIndexInitializer.ensureIndexes();
+        List<WishlistItem> items = new ArrayList<>();
+        IntStream.range(0, ITEMS_PER_CLIENT)
+                .forEach(i -> items.add(item(i + 1L, CLIENT_ID, 100 + i)));
+        IntStream.range(0, BATCH_CLIENTS * 2)
+                .forEach(i -> items.add(item(1000L + i, 1000 + i / 2, 100 + i % 2)));
+        mongoTemplate.insertAll(items);
+    }
+
+    @AfterEach
+    void tearDown() {
+        RECORDER.stop();
+    }
+
+    @AfterAll
+    static void stopServer() {
+        SERVER.shutdownNow();
+    }
+
+    @Test
+    void getItemById() throws Exception {
+        assertWithinBudget(GET_ITEM, get("/wishlist/1"));
+    }
+
+    @Test
+    void getClientWishlist() throws Exception {
+        assertWithinBudget(GET_CLIENT, get("/wishlist/client/" + CLIENT_ID));
+    }
+
+    @Test
+    void getClientWishlistIdsView() throws Exception {
+        assertWithinBudget(GET_CLIENT_IDS, get("/wishlist/client/" + CLIENT_ID).param("view", "ids"));
+    }
+
+    @Test
+    void getItemByClientAndProduct() throws Exception {
+        assertWithinBudget(GET_CLIENT_PRODUCT, get("/wishlist/client/" + CLIENT_ID + "/product/100"));
+    }
+
+    @Test
+    void getWishlistsByClientIds() throws Exception {
+        List<Integer> clientIds = IntStream.range(1000, 1000 + BATCH_CLIENTS).boxed().toList();
+        assertWithinBudget(GET_CLIENTS, post("/wishlist/clients")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(clientIds)));
+    }
+
+    @Test
+    void addItem() throws Exception {
+        assertWithinBudget(ADD_ITEM, post("/wishlist/add_item")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(item(null, CLIENT_ID, 999))));
+    }
+
+    @Test
+    void addList() throws Exception {
+        Wishlist wishlist = new Wishlist(List.of(item(null, 20, 1), item(null, 20, 2), item(null, 20, 3)));
+        assertWithinBudget(ADD_LIST, post("/wishlist/add_list")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(wishlist)));
+    }
+
+    @Test
+    void deleteItemById() throws Exception {
+        assertWithinBudget(DELETE_ITEM, delete("/wishlist/delete/1"));
+    }
+
+    @Test
+    void deleteWishlist() throws Exception {
+        assertWithinBudget(DELETE_ALL, delete("/wishlist/delete"));
+    }
+
+    @Nested
+    @TestPropertySource(properties = {
+            "wishlist.outbox.enabled=true",
+            "wishlist.outbox.relay.interval-ms=3600000"
+    })
+    class WithOutbox {
+
+        // o MockMvc da classe externa pertence ao contexto sem outbox
+        @Autowired
+        private MockMvc outboxMockMvc;
+
+        @BeforeEach
+        void clearOutbox() {
+            mongoTemplate.dropCollection(WishlistEvent.class);
+            mongoIndexInitializer.ensureIndexes();
+        }
+
+        @Test
+        void addItem() throws Exception {
+            assertWithinBudget(outboxMockMvc, ADD_ITEM_OUTBOX, post("/wishlist/add_item")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(item(null, CLIENT_ID, 999))));
+            assertThat(mongoTemplate.count(new Query(), WishlistEvent.class)).isEqualTo(1);
+        }
+
+        @Test
+        void addList() throws Exception {
+            Wishlist wishlist = new Wishlist(List.of(item(null, 20, 1), item(null, 20, 2), item(null, 20, 3)));
+            assertWithinBudget(outboxMockMvc, ADD_LIST_OUTBOX, post("/wishlist/add_list")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(wishlist)));
+            assertThat(mongoTemplate.count(new Query(), WishlistEvent.class)).isEqualTo(3);
+        }
+
+        @Test
+        void deleteItemById() throws Exception {
+            assertWithinBudget(outboxMockMvc, DELETE_ITEM_OUTBOX, delete("/wishlist/delete/1"));
+            assertThat(mongoTemplate.count(new Query(), WishlistEvent.class)).isEqualTo(1);
+        }
+
+        @Test
+        void deleteWishlist() throws Exception {
+            assertWithinBudget(outboxMockMvc, DELETE_ALL_OUTBOX, delete("/wishlist/delete"));
+            assertThat(mongoTemplate.count(new Query(), WishlistEvent.class)).isEqualTo(1);
+        }
+    }
+
+    private void assertWithinBudget(Budget budget, RequestBuilder requestBuilder) throws Exception {
+        assertWithinBudget(mockMvc, budget, requestBuilder);
+    }
+
+    private void assertWithinBudget(MockMvc mockMvc, Budget budget, RequestBuilder requestBuilder) throws Exception {
+        RECORDER.start();
+        MvcResult result = mockMvc.perform(requestBuilder).andReturn();
+        if (result.getRequest().isAsyncStarted()) {
+            mockMvc.perform(asyncDispatch(result)).andExpect(status().isOk());
+        } else {
+            assertThat(result.getResponse().getStatus()).as(budget.endpoint()).isEqualTo(200);
+        }
+        List<RoundTrip> roundTrips = RECORDER.stop();
+
+        Map<String, Long> commands = roundTrips.stream()
+                .collect(Collectors.groupingBy(RoundTrip::command, LinkedHashMap::new, Collectors.counting()));
+        long bytes = roundTrips.stream().mapToLong(RoundTrip::bytes).sum();
+        log.info("{}: {} em {} bytes", budget.endpoint(), commands, bytes);
+
+        assertThat(commands.keySet())
+                .as("comandos de %s", budget.endpoint())
+                .isSubsetOf(budget.commands().keySet());
+        commands.forEach((command, count) -> assertThat(count)
+                .as("%s: quantidade de '%s'", budget.endpoint(), command)
+                .isLessThanOrEqualTo(budget.commands().get(command)));
+        assertThat(bytes).as("%s: bytes trafegados", budget.endpoint()).isLessThanOrEqualTo(budget.maxBytes());
+        if (!budget.collScanAllowed()) {
+            roundTrips.stream()
+                    .filter(roundTrip -> roundTrip.filter() != null)
+                    .forEach(roundTrip -> assertThat(usesIndex(roundTrip))
+                            .as("%s: '%s' em %s sem índice para o filtro %s", budget.endpoint(),
+                                    roundTrip.command(), roundTrip.collection(), roundTrip.filter().toJson())
+                            .isTrue());
+        }
+    }
+
+    private boolean usesIndex(RoundTrip roundTrip) {
+        Set<String> fields = filterFields(roundTrip.filter());
+        if (fields.contains("_id")) {
+            return true;
+        }
+        return mongoTemplate.indexOps(roundTrip.collection()).getIndexInfo().stream()
+                .map(IndexInfo::getIndexFields)
+                .anyMatch(indexFields -> !indexFields.isEmpty() && fields.contains(indexFields.get(0).getKey()));
+    }
+
+    private static Set<String> filterFields(BsonDocument filter) {
+        Set<String> fields = new HashSet<>();
+        filter.forEach((key, value) -> {
+            if ("$and".equals(key) && value.isArray()) {
+                value.asArray().forEach(clause -> fields.addAll(filterFields(clause.asDocument())));
+            } else if (!key.startsWith("$")) {
+                fields.add(key);
+            }
+        });
+        return fields;
+    }
+
+    private static WishlistItem item(Long id, int clientId, int productId) {
+        return new WishlistItem(id, clientId, "Cliente " + clientId, productId, "Produto " + productId,
+                LocalDate.of(2024, 1, 1));
+    }
+
+    private record Budget(String endpoint, Map<String, Integer> commands, long maxBytes, boolean collScanAllowed) {
+    }
+
+    private record RoundTrip(String command, String collection, BsonDocument filter, long bytes) {
+    }
+
+    private static class CommandRecorder implements CommandListener {
+
+        private final Map<Integer, Started> inFlight = new ConcurrentHashMap<>();
+        private final List<RoundTrip> roundTrips = new CopyOnWriteArrayList<>();
+        private volatile boolean recording;
+
+        void start() {
+            roundTrips.clear();
+            recording = true;
+        }
+
+        List<RoundTrip> stop() {
+            recording = false;
+            inFlight.clear();
+            return List.copyOf(roundTrips);
+        }
+
+        @Override
+        public void commandStarted(CommandStartedEvent event) {
+            if (recording && !IGNORED_COMMANDS.contains(event.getCommandName()) && !isBackgroundThread()) {
+                BsonDocument command = event.getCommand();
+                BsonValue target = command.get(event.getCommandName());
+                inFlight.put(event.getRequestId(), new Started(event.getCommandName(),
+                        target != null && target.isString() ? target.asString().getValue() : null,
+                        filterOf(event.getCommandName(), command), sizeOf(command)));
+            }
+        }
+
+        @Override
+        public void commandSucceeded(CommandSucceededEvent event) {
+            Started started = inFlight.remove(event.getRequestId());
+            if (started != null) {
+                roundTrips.add(new RoundTrip(started.command(), started.collection(), started.filter(),
+                        started.bytes() + sizeOf(event.getResponse())));
+            }
+        }
+
+        private static boolean isBackgroundThread() {
+            String thread = Thread.currentThread().getName();
+            return BACKGROUND_THREADS.stream().anyMatch(thread::startsWith);
+        }
+
+        private static BsonDocument filterOf(String commandName, BsonDocument command) {
+            BsonDocument filter = switch (commandName) {
+                case "find" -> command.getDocument("filter", new BsonDocument());
+                case "findAndModify", "count" -> command.getDocument("query", new BsonDocument());
+                case "delete" -> firstStatement(command, "deletes", "q");
+                case "update" -> firstStatement(command, "updates", "q");
+                default -> null;
+            };
+            return filter == null ? null : filter.clone();
+        }
+
+        private static BsonDocument firstStatement(BsonDocument command, String field, String filterField) {
+            BsonArray statements = command.getArray(field, new BsonArray());
+            return statements.isEmpty() ? new BsonDocument()
+                    : statements.get(0).asDocument().getDocument(filterField, new BsonDocument());
+        }
+
+        private static long sizeOf(BsonDocument document) {
+            return new RawBsonDocument(document, new BsonDocumentCodec()).getByteBuffer().remaining();
+        }
+
+        private record Started(String command, String collection, BsonDocument filter, long bytes) {
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.wishlist.domain.repository;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.ConnectionString;
+import com.mongodb.MongoClientSettings;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandSucceededEvent;
+import com.wishlist.domain.model.WishlistItem;
+import com.wishlist.domain.model.WishlistView;
+import de.bwaldvogel.mongo.MongoServer;
+import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.BsonDocument;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.BsonDocumentCodec;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.repository.support.MongoRepositoryFactory;
+
+import java.net.InetSocketAddress;
+import java.time.LocalDate;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Mede bytes trafegados do Mongo, bytes serializados na resposta e latência média por view,
+ * usando um servidor Mongo em memória. Os números são relativos; o que é garantido é a ordem ids < summary < full.
+ */
+@Slf4j
+class WishlistViewBenchmarkTest {
+
+    private static final int CLIENTS = 50;
+    private static final int ITEMS_PER_CLIENT = 20;
+    private static final int ROUNDS = 10;
+
+    private final AtomicLong replyBytes = new AtomicLong();
+    private final AtomicReference<BsonDocument> lastReply = new AtomicReference<>();
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    private MongoServer server;
+    private MongoClient client;
+    private WishlistRepository wishlistRepository;
+
+    @BeforeEach
+    void setUp() {
+        server = new MongoServer(new MemoryBackend());
+        InetSocketAddress address = server.bind();
+        CommandListener listener = new CommandListener() {
+            @Override
+            public void commandSucceeded(CommandSucceededEvent event) {
+                if ("find".equals(event.getCommandName())) {
+                    BsonDocument reply = event.getResponse().clone();
+                    replyBytes.addAndGet(new RawBsonDocument(reply, new BsonDocumentCodec()).getByteBuffer().remaining());
+                    lastReply.set(reply);
+                }
+            }
+        };
+        client = MongoClients.create(MongoClientSettings.builder()
+                .applyConnectionString(new ConnectionString("mongodb://" + address.getHostString() + ":" + address.getPort()))
+                .addCommandListener(listener)
+                .build());
+        MongoTemplate mongoTemplate = new MongoTemplate(client, "wishlist");
+        wishlistRepository = new MongoRepositoryFactory(mongoTemplate).getRepository(WishlistRepository.class);
+
+        List<WishlistItem> items = IntStream.range(0, CLIENTS * ITEMS_PER_CLIENT)
+                .mapToObj(i -> new WishlistItem((long) i, i / ITEMS_PER_CLIENT, "Cliente " + i / ITEMS_PER_CLIENT,
+                        1000 + i, "Produto com um nome razoavelmente comprido " + i, LocalDate.of(2024, 1, 1)))
+                .toList();
+        mongoTemplate.insertAll(items);
+    }
+
+    @AfterEach
+    void tearDown() {
+        client.close();
+        server.shutdownNow();
+    }
+
+    @Test
+    void clientListViews_moveFewerBytesThanFullDocuments() throws Exception {
+        Map<WishlistView, long[]> results = new EnumMap<>(WishlistView.class);
+        for (WishlistView view : WishlistView.values()) {
+            replyBytes.set(0);
+            long serializedBytes = 0;
+            long elapsed = 0;
+            for (int round = 0; round < ROUNDS; round++) {
+                for (int clientId = 0; clientId < CLIENTS; clientId++) {
+                    long start = System.nanoTime();
+                    List<?> itens = wishlistRepository.findWishlistItemByClientId(clientId, view.getType());
+                    serializedBytes += objectMapper.writeValueAsBytes(itens).length;
+                    elapsed += System.nanoTime() - start;
+                    assertThat(itens).hasSize(ITEMS_PER_CLIENT);
+                }
+            }
+            int reads = ROUNDS * CLIENTS;
+            results.put(view, new long[]{replyBytes.get() / reads, serializedBytes / reads, elapsed / reads / 1000});
+            if (view != WishlistView.FULL) {
+                assertThat(lastReply.get().toJson()).doesNotContain("clientName").doesNotContain("date");
+            }
+        }
+
+        results.forEach((view, r) -> log.info("view {}: {} bytes do Mongo, {} bytes de JSON, {} us por leitura",
+                view, r[0], r[1], r[2]));
+
+        assertThat(results.get(WishlistView.IDS)[0]).isLessThan(results.get(WishlistView.SUMMARY)[0]);
+        assertThat(results.get(WishlistView.SUMMARY)[0]).isLessThan(results.get(WishlistView.FULL)[0]);
+        assertThat(results.get(WishlistView.IDS)[1]).isLessThan(results.get(WishlistView.SUMMARY)[1]);
+        assertThat(results.get(WishlistView.SUMMARY)[1]).isLessThan(results.get(WishlistView.FULL)[1]);
+    }
+
+    @Test
+    void itemLookups_pushProjectionDownToMongo() {
+        Object ids = wishlistRepository.findWishlistItemByClientIdAndProductId(0, 1000, WishlistView.IDS.getType()).get(0);
+        assertThat(lastReply.get().toJson()).doesNotContain("productName");
+
+        Object summary = wishlistRepository.findWishlistItemById(0L, WishlistView.SUMMARY.getType()).orElseThrow();
+        assertThat(lastReply.get().toJson()).contains("productName").doesNotContain("clientName");
+
+        assertThat(ids).hasFieldOrPropertyWithValue("id", 0L).hasFieldOrPropertyWithValue("productId", 1000);
+        assertThat(summary).hasFieldOrPropertyWithValue("clientId", 0);
+    }
+}
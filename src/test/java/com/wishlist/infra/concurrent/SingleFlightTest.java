@@ -0,0 +1,140 @@
+package com.wishlist.infra.concurrent;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SingleFlightTest {
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(8);
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    private void awaitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("condição não atingida a tempo").isLessThan(deadline);
+            Thread.sleep(1);
+        }
+    }
+
+    @Test
+    void concurrentCallersForSameKeyShareOneLoad() throws Exception {
+        SingleFlight<Integer, String> singleFlight = new SingleFlight<>(16);
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+
+        List<Future<String>> results = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            results.add(executor.submit(() -> singleFlight.execute(10, () -> {
+                loads.incrementAndGet();
+                await(release);
+                return "lista";
+            })));
+        }
+        // só libera a carga depois que os outros 7 chamadores estão parados nela
+        awaitUntil(() -> singleFlight.waiters() == 7);
+        release.countDown();
+
+        for (Future<String> result : results) {
+            assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo("lista");
+        }
+        assertThat(loads).hasValue(1);
+        assertThat(singleFlight.size()).isZero();
+        assertThat(singleFlight.waiters()).isZero();
+    }
+
+    @Test
+    void differentKeysLoadIndependently() {
+        SingleFlight<Integer, Integer> singleFlight = new SingleFlight<>(16);
+
+        assertThat(singleFlight.execute(1, () -> 1)).isEqualTo(1);
+        assertThat(singleFlight.execute(2, () -> 2)).isEqualTo(2);
+    }
+
+    @Test
+    void failureIsPropagatedToEveryWaiter() throws Exception {
+        SingleFlight<Integer, String> singleFlight = new SingleFlight<>(16);
+        CountDownLatch release = new CountDownLatch(1);
+
+        Future<String> leader = executor.submit(() -> singleFlight.execute(10, () -> {
+            await(release);
+            throw new IllegalStateException("mongo fora");
+        }));
+        awaitUntil(() -> singleFlight.size() == 1);
+        Future<String> follower = executor.submit(() -> singleFlight.execute(10, () -> "não deveria executar"));
+        awaitUntil(() -> singleFlight.waiters() == 1);
+        release.countDown();
+
+        for (Future<String> result : List.of(leader, follower)) {
+            assertThatThrownBy(() -> result.get(5, TimeUnit.SECONDS))
+                    .hasCauseInstanceOf(IllegalStateException.class)
+                    .hasRootCauseMessage("mongo fora");
+        }
+    }
+
+    @Test
+    void invalidatedKeyStartsFreshLoadForLaterCallers() throws Exception {
+        SingleFlight<Integer, String> singleFlight = new SingleFlight<>(16);
+        CountDownLatch release = new CountDownLatch(1);
+
+        Future<String> stale = executor.submit(() -> singleFlight.execute(10, () -> {
+            await(release);
+            return "antes da escrita";
+        }));
+        awaitUntil(() -> singleFlight.size() == 1);
+
+        singleFlight.invalidate(key -> key == 10);
+
+        assertThat(singleFlight.execute(10, () -> "depois da escrita")).isEqualTo("depois da escrita");
+        release.countDown();
+        assertThat(stale.get(5, TimeUnit.SECONDS)).isEqualTo("antes da escrita");
+    }
+
+    @Test
+    void loadsRunUncoalescedWhenInFlightLimitIsReached() throws Exception {
+        SingleFlight<Integer, String> singleFlight = new SingleFlight<>(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger loads = new AtomicInteger();
+
+        Future<String> first = executor.submit(() -> singleFlight.execute(1, () -> {
+            loads.incrementAndGet();
+            await(release);
+            return "um";
+        }));
+        awaitUntil(() -> singleFlight.size() == 1);
+
+        assertThat(singleFlight.execute(2, () -> {
+            loads.incrementAndGet();
+            return "dois";
+        })).isEqualTo("dois");
+        assertThat(singleFlight.size()).isEqualTo(1);
+
+        release.countDown();
+        assertThat(first.get(5, TimeUnit.SECONDS)).isEqualTo("um");
+        assertThat(loads).hasValue(2);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.wishlist.infra.mongo;
+
+import com.wishlist.service.WishlistArchiveService;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.UncategorizedMongoDbException;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MongoIndexInitializerTest {
+
+    @Mock
+    private MongoOperations mongoOperations;
+
+    @Mock
+    private IndexOperations indexOperations;
+
+    @InjectMocks
+    private MongoIndexInitializer mongoIndexInitializer;
+
+    @Test
+    void ensureArchiveCollection_createsCompressedCollectionWhenMissing() {
+        when(mongoOperations.collectionExists(WishlistArchiveService.ARCHIVE_COLLECTION)).thenReturn(false);
+        when(mongoOperations.indexOps(WishlistArchiveService.ARCHIVE_COLLECTION)).thenReturn(indexOperations);
+
+        mongoIndexInitializer.ensureArchiveCollection();
+
+        verify(mongoOperations).executeCommand(argThat((Document command) ->
+                WishlistArchiveService.ARCHIVE_COLLECTION.equals(command.get("create"))
+                        && command.toJson().contains("block_compressor=zstd")));
+        verify(indexOperations).createIndex(argThat((IndexDefinition index) ->
+                index.getIndexKeys().containsKey("clientId")));
+    }
+
+    @Test
+    void ensureArchiveCollection_keepsExistingCollection() {
+        when(mongoOperations.collectionExists(WishlistArchiveService.ARCHIVE_COLLECTION)).thenReturn(true);
+        when(mongoOperations.indexOps(WishlistArchiveService.ARCHIVE_COLLECTION)).thenReturn(indexOperations);
+
+        mongoIndexInitializer.ensureArchiveCollection();
+
+        verify(mongoOperations, never()).executeCommand(any(Document.class));
+        verify(indexOperations).createIndex(any(IndexDefinition.class));
+    }
+
+    @Test
+    void ensureArchiveCollection_toleratesConcurrentCreation() {
+        when(mongoOperations.collectionExists(WishlistArchiveService.ARCHIVE_COLLECTION)).thenReturn(false, true);
+        when(mongoOperations.executeCommand(any(Document.class)))
+                .thenThrow(new UncategorizedMongoDbException("Collection already exists", null));
+        when(mongoOperations.indexOps(WishlistArchiveService.ARCHIVE_COLLECTION)).thenReturn(indexOperations);
+
+        mongoIndexInitializer.ensureArchiveCollection();
+
+        verify(indexOperations).createIndex(any(IndexDefinition.class));
+    }
+}
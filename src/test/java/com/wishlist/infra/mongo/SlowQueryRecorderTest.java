@@ -0,0 +1,219 @@
+package com.wishlist.infra.mongo;
+
+import com.mongodb.ServerAddress;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.connection.ClusterId;
+import com.mongodb.connection.ConnectionDescription;
+import com.mongodb.connection.ServerId;
+import com.mongodb.event.CommandFailedEvent;
+import com.mongodb.event.CommandStartedEvent;
+import com.mongodb.event.CommandSucceededEvent;
+import com.wishlist.domain.model.WishlistItem;
+import com.wishlist.domain.repository.WishlistRepository;
+import com.wishlist.service.SequenceGeneratorService;
+import com.wishlist.service.WishlistArchiveService;
+import com.wishlist.service.WishlistOutbox;
+import com.wishlist.service.WishlistService;
+import org.bson.BsonArray;
+import org.bson.BsonBoolean;
+import org.bson.BsonDocument;
+import org.bson.BsonInt32;
+import org.bson.BsonInt64;
+import org.bson.BsonString;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.DbCallback;
+import org.springframework.data.mongodb.core.MongoOperations;
+
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SlowQueryRecorderTest {
+
+    private static final ConnectionDescription CONNECTION =
+            new ConnectionDescription(new ServerId(new ClusterId(), new ServerAddress()));
+
+    @Mock
+    private MongoOperations mongoOperations;
+
+    private ExecutorService explainExecutor;
+    private SlowQueryRecorder recorder;
+    private int requestId;
+
+    @BeforeEach
+    void setUp() {
+        explainExecutor = Executors.newSingleThreadExecutor();
+        recorder = new SlowQueryRecorder(() -> mongoOperations, explainExecutor, 100, 2, 3);
+    }
+
+    private BsonDocument findByClient(int clientId) {
+        return new BsonDocument("find", new BsonString("wishlistItem"))
+                .append("filter", new BsonDocument("clientId", new BsonInt32(clientId)))
+                .append("$db", new BsonString("wishlist"));
+    }
+
+    private BsonDocument cursorReply(int docs) {
+        BsonArray batch = new BsonArray();
+        for (int i = 0; i < docs; i++) {
+            batch.add(new BsonDocument("_id", new BsonInt64(i)));
+        }
+        return new BsonDocument("cursor", new BsonDocument("firstBatch", batch));
+    }
+
+    private void run(String commandName, BsonDocument command, BsonDocument reply, long elapsedMs) {
+        int id = ++requestId;
+        recorder.commandStarted(new CommandStartedEvent(null, id, id, CONNECTION, "wishlist", commandName, command));
+        recorder.commandSucceeded(new CommandSucceededEvent(null, id, id, CONNECTION, "wishlist", commandName,
+                reply, TimeUnit.MILLISECONDS.toNanos(elapsedMs)));
+    }
+
+    private void awaitExplains() throws InterruptedException {
+        explainExecutor.shutdown();
+        assertThat(explainExecutor.awaitTermination(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    void fastCommandsAreNotRecorded() throws Exception {
+        run("find", findByClient(10), cursorReply(3), 5);
+        awaitExplains();
+
+        assertThat(recorder.report().getQueries()).isEmpty();
+        verifyNoInteractions(mongoOperations);
+    }
+
+    @Test
+    void slowCommandIsRecordedWithShapeAndExplainPlan() throws Exception {
+        Document explain = new Document("queryPlanner", new Document("winningPlan",
+                new Document("stage", "FETCH").append("inputStage",
+                        new Document("stage", "IXSCAN").append("keyPattern", new Document("clientId", 1)))))
+                .append("executionStats", new Document("totalDocsExamined", 3).append("totalKeysExamined", 3)
+                        .append("nReturned", 3).append("executionTimeMillis", 150));
+        when(mongoOperations.execute(any(DbCallback.class))).thenReturn(explain);
+
+        run("find", findByClient(10), cursorReply(3), 150);
+        awaitExplains();
+
+        SlowQueryReport report = recorder.report();
+        assertThat(report.getQueries()).hasSize(1);
+        SlowQuery slowQuery = report.getQueries().get(0);
+        assertThat(slowQuery.getShape()).isEqualTo("find wishlistItem {\"clientId\": \"?\"}");
+        assertThat(slowQuery.getCommand()).contains("\"clientId\": 10").doesNotContain("$db");
+        assertThat(slowQuery.getDurationMs()).isEqualTo(150);
+        assertThat(slowQuery.getDocsReturned()).isEqualTo(3);
+        assertThat(slowQuery.getDocsExamined()).isEqualTo(3);
+        assertThat(slowQuery.getPlanSummary()).isEqualTo("FETCH > IXSCAN {\"clientId\": 1}");
+        assertThat(report.getPlans()).extracting(SlowQueryPlan::getShape).containsExactly(slowQuery.getShape());
+    }
+
+    @Test
+    void coalescedReadIsAttributedToTheServiceMethodThatIssuedIt() throws Exception {
+        when(mongoOperations.execute(any(DbCallback.class))).thenReturn(new Document());
+        // proxy JDK como o que o Spring Data gera: o comando sai de dentro da leitura agrupada pelo SingleFlight
+        WishlistRepository repository = (WishlistRepository) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{WishlistRepository.class}, (proxy, method, args) -> {
+                    run("find", findByClient(10), cursorReply(1), 150);
+                    return List.of(new WishlistItem());
+                });
+        WishlistService wishlistService = new WishlistService(repository, mock(SequenceGeneratorService.class),
+                mock(WishlistArchiveService.class), mock(WishlistOutbox.class));
+
+        wishlistService.getWishlistItensByClientId(10, false, WishlistItem.class);
+        awaitExplains();
+
+        assertThat(recorder.report().getQueries()).extracting(SlowQuery::getCaller)
+                .containsExactly("WishlistService.getWishlistItensByClientId");
+    }
+
+    @Test
+    void repeatedShapesAreExplainedOnlyWhenSampled() throws Exception {
+        when(mongoOperations.execute(any(DbCallback.class))).thenReturn(new Document());
+
+        for (int clientId = 0; clientId < 4; clientId++) {
+            run("find", findByClient(clientId), cursorReply(1), 200);
+        }
+        awaitExplains();
+
+        verify(mongoOperations, times(2)).execute(any(DbCallback.class));
+        assertThat(recorder.report().getOccurrencesByShape())
+                .containsEntry("find wishlistItem {\"clientId\": \"?\"}", 4L);
+    }
+
+    @Test
+    void bufferKeepsOnlyTheMostRecentEntries() throws Exception {
+        recorder = new SlowQueryRecorder(() -> mongoOperations, explainExecutor, 100, 2, 1000);
+        BsonDocument insert = new BsonDocument("insert", new BsonString("wishlistItem"));
+        BsonDocument reply = new BsonDocument("n", new BsonInt32(1));
+
+        run("insert", insert, reply, 300);
+        run("insert", insert, reply, 200);
+        run("insert", insert, reply, 100);
+        awaitExplains();
+
+        List<SlowQuery> queries = recorder.report().getQueries();
+        assertThat(queries).extracting(SlowQuery::getDurationMs).containsExactly(100L, 200L);
+        assertThat(queries.get(0).getDocsReturned()).isEqualTo(1);
+        verifyNoInteractions(mongoOperations);
+    }
+
+    @Test
+    void failedCommandsAreDiscarded() {
+        recorder.commandStarted(new CommandStartedEvent(null, 1, 1, CONNECTION, "wishlist", "find", findByClient(10)));
+        recorder.commandFailed(new CommandFailedEvent(null, 1, 1, CONNECTION, "wishlist", "find",
+                TimeUnit.SECONDS.toNanos(1), new RuntimeException("boom")));
+        recorder.commandSucceeded(new CommandSucceededEvent(null, 1, 1, CONNECTION, "wishlist", "find",
+                cursorReply(1), TimeUnit.SECONDS.toNanos(1)));
+
+        assertThat(recorder.report().getQueries()).isEmpty();
+    }
+
+    @Test
+    void startedCommandKeepsOnlyQueryFields() {
+        BsonDocument update = new BsonDocument("update", new BsonString("wishlistItem"))
+                .append("updates", new BsonArray(List.of(new BsonDocument("q", new BsonDocument("_id", new BsonInt64(1)))
+                        .append("u", new BsonDocument("productName", new BsonString("x".repeat(1000))))
+                        .append("upsert", BsonBoolean.TRUE))))
+                .append("lsid", new BsonDocument("id", new BsonString("session")))
+                .append("$db", new BsonString("wishlist"));
+
+        BsonDocument query = SlowQueryRecorder.queryOf("update", "wishlistItem", update);
+
+        assertThat(query.toJson()).isEqualTo("{\"update\": \"wishlistItem\", \"q\": {\"_id\": 1}}");
+        assertThat(SlowQueryRecorder.queryOf("insert", "wishlistItem",
+                new BsonDocument("insert", new BsonString("wishlistItem")))).isNull();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void slowWriteIsExplainedAsEquivalentFind() throws Exception {
+        MongoDatabase database = mock(MongoDatabase.class);
+        ArgumentCaptor<Bson> explainCaptor = ArgumentCaptor.forClass(Bson.class);
+        when(database.runCommand(explainCaptor.capture())).thenReturn(new Document());
+        when(mongoOperations.execute(any(DbCallback.class)))
+                .thenAnswer(invocation -> ((DbCallback<Document>) invocation.getArgument(0)).doInDB(database));
+        BsonDocument findAndModify = new BsonDocument("findAndModify", new BsonString("wishlistItem"))
+                .append("query", new BsonDocument("clientId", new BsonInt32(10)))
+                .append("update", new BsonDocument("$inc", new BsonDocument("seq", new BsonInt32(1))));
+
+        run("findAndModify", findAndModify, new BsonDocument("value", new BsonDocument()), 150);
+        awaitExplains();
+
+        assertThat(recorder.report().getQueries().get(0).getCommand()).doesNotContain("$inc");
+        assertThat(explainCaptor.getValue().toBsonDocument().toJson()).isEqualTo(
+                "{\"explain\": {\"find\": \"wishlistItem\", \"filter\": {\"clientId\": 10}, \"limit\": 1}, "
+                        + "\"verbosity\": \"executionStats\"}");
+    }
+}
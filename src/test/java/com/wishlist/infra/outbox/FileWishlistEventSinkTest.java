@@ -0,0 +1,40 @@
+package com.wishlist.infra.outbox;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.wishlist.domain.model.WishlistEvent;
+import com.wishlist.domain.model.WishlistEventType;
+import com.wishlist.domain.model.WishlistItem;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FileWishlistEventSinkTest {
+
+    @TempDir
+    Path dir;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    @Test
+    void publish_appendsOneJsonLinePerEventInOrder() throws Exception {
+        Path file = dir.resolve("outbox/events.jsonl");
+        FileWishlistEventSink sink = new FileWishlistEventSink(file, objectMapper);
+        WishlistItem it = new WishlistItem();
+        it.setId(1L);
+        it.setClientId(10);
+        it.setProductId(100);
+
+        sink.publish(List.of(WishlistEvent.of(WishlistEventType.ADDED, it)));
+        sink.publish(List.of(WishlistEvent.of(WishlistEventType.DELETED, it), WishlistEvent.purged()));
+
+        List<String> lines = Files.readAllLines(file);
+        assertThat(lines).hasSize(3);
+        assertThat(lines).extracting(line -> objectMapper.readTree(line).get("type").asText())
+                .containsExactly("ADDED", "DELETED", "PURGED");
+    }
+}
@@ -0,0 +1,41 @@
+package com.wishlist.infra.outbox;
+
+import com.wishlist.domain.model.WishlistEvent;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InMemoryWishlistEventSinkTest {
+
+    private List<WishlistEvent> events(long from, long to) {
+        return LongStream.range(from, to).mapToObj(sequence -> {
+            WishlistEvent event = WishlistEvent.purged();
+            event.setSequence(sequence);
+            return event;
+        }).toList();
+    }
+
+    @Test
+    void publish_evictsOldestEventsWhenFullInsteadOfFailing() {
+        InMemoryWishlistEventSink sink = new InMemoryWishlistEventSink(3);
+
+        sink.publish(events(1, 3));
+        sink.publish(events(3, 6));
+
+        assertThat(sink.size()).isEqualTo(3);
+        assertThat(sink.dropped()).isEqualTo(2);
+        assertThat(sink.drain(10)).extracting(WishlistEvent::getSequence).containsExactly(3L, 4L, 5L);
+    }
+
+    @Test
+    void drain_returnsAtMostTheRequestedEventsInOrder() {
+        InMemoryWishlistEventSink sink = new InMemoryWishlistEventSink(10);
+        sink.publish(events(1, 4));
+
+        assertThat(sink.drain(2)).extracting(WishlistEvent::getSequence).containsExactly(1L, 2L);
+        assertThat(sink.size()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,187 @@
+package com.wishlist.service;
+
+import com.wishlist.domain.model.ArchiveReport;
+import com.wishlist.domain.model.WishlistItem;
+import com.wishlist.domain.model.WishlistItemIds;
+import com.wishlist.infra.exception.BadRequestException;
+import com.wishlist.infra.mongo.MongoIndexInitializer;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.ExecutableFindOperation;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class WishlistArchiveServiceTest {
+
+    @Mock
+    private MongoOperations mongoOperations;
+
+    @Mock
+    private BulkOperations bulkOperations;
+
+    @Mock
+    private MongoIndexInitializer mongoIndexInitializer;
+
+    @InjectMocks
+    private WishlistArchiveService wishlistArchiveService;
+
+    @Captor
+    private ArgumentCaptor<Query> queryCaptor;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(wishlistArchiveService, "maxAgeDays", 365);
+        ReflectionTestUtils.setField(wishlistArchiveService, "batchSize", 2);
+        ReflectionTestUtils.setField(wishlistArchiveService, "pauseMillis", 0L);
+    }
+
+    private List<WishlistItem> oldItems(long firstId, int count) {
+        return IntStream.range(0, count)
+                .mapToObj(i -> {
+                    WishlistItem it = new WishlistItem();
+                    it.setId(firstId + i);
+                    it.setClientId(10);
+                    it.setProductId(100 + i);
+                    it.setDate(LocalDate.of(2020, 1, 1));
+                    return it;
+                }).collect(Collectors.toList());
+    }
+
+    private void stubCollections() {
+        when(mongoOperations.getCollectionName(WishlistItem.class)).thenReturn("wishlistItem");
+    }
+
+    private List<Long> findStillHot() {
+        return mongoOperations.findDistinct(any(Query.class), eq("_id"), eq(WishlistItem.class), eq(Long.class));
+    }
+
+    @Test
+    void archive_movesItemsInBatchesUntilHotCollectionHasNoOldItems() {
+        stubCollections();
+        when(mongoOperations.find(any(Query.class), eq(WishlistItem.class)))
+                .thenReturn(oldItems(1, 2), oldItems(3, 1));
+        when(findStillHot()).thenReturn(List.of(1L, 2L), List.of(3L));
+        when(mongoOperations.bulkOps(BulkOperations.BulkMode.UNORDERED, WishlistItem.class,
+                WishlistArchiveService.ARCHIVE_COLLECTION)).thenReturn(bulkOperations);
+        when(mongoOperations.executeCommand(any(Document.class)))
+                .thenReturn(new Document("count", 10).append("avgObjSize", 120).append("totalIndexSize", 800L));
+
+        ArchiveReport report = wishlistArchiveService.archive();
+
+        assertThat(report.getItemsArchived()).isEqualTo(3);
+        assertThat(report.getBatches()).isEqualTo(2);
+        assertThat(report.getCutoff()).isEqualTo(LocalDate.now().minusDays(365));
+        assertThat(report.getEstimatedDataBytesSaved()).isEqualTo(360);
+        assertThat(report.getEstimatedIndexBytesSaved()).isEqualTo(240);
+        assertThat(report.getNote()).isEqualTo(ArchiveReport.SPACE_NOTE);
+        verify(bulkOperations, times(3)).replaceOne(any(Query.class), any(WishlistItem.class), any());
+        verify(bulkOperations, times(2)).execute();
+        verify(mongoOperations, times(2)).remove(queryCaptor.capture(), eq(WishlistItem.class));
+        assertThat(queryCaptor.getAllValues().get(0).getQueryObject().toJson()).contains("\"$in\": [1, 2]");
+        verify(mongoOperations, never()).remove(any(Query.class), eq(WishlistArchiveService.ARCHIVE_COLLECTION));
+    }
+
+    @Test
+    void archive_dropsArchivedCopyOfItemDeletedBetweenBatchReadAndBulkWrite() {
+        stubCollections();
+        ReflectionTestUtils.setField(wishlistArchiveService, "batchSize", 3);
+        when(mongoOperations.find(any(Query.class), eq(WishlistItem.class))).thenReturn(oldItems(1, 3), List.of());
+        when(mongoOperations.bulkOps(BulkOperations.BulkMode.UNORDERED, WishlistItem.class,
+                WishlistArchiveService.ARCHIVE_COLLECTION)).thenReturn(bulkOperations);
+        // o item 2 foi apagado por DELETE /wishlist/delete/2 depois do nextBatch: a coleção quente já não o tem,
+        // mas o upsert do lote o gravou no arquivo
+        when(findStillHot()).thenReturn(List.of(1L, 3L));
+
+        ArchiveReport report = wishlistArchiveService.archive();
+
+        assertThat(report.getItemsArchived()).isEqualTo(2);
+        InOrder inOrder = inOrder(bulkOperations, mongoOperations);
+        inOrder.verify(bulkOperations).execute();
+        inOrder.verify(mongoOperations).findDistinct(queryCaptor.capture(), eq("_id"), eq(WishlistItem.class), eq(Long.class));
+        inOrder.verify(mongoOperations).remove(queryCaptor.capture(), eq(WishlistArchiveService.ARCHIVE_COLLECTION));
+        inOrder.verify(mongoOperations).remove(any(Query.class), eq(WishlistItem.class));
+        assertThat(queryCaptor.getAllValues().get(0).getQueryObject().toJson()).contains("\"$in\": [1, 2, 3]");
+        assertThat(queryCaptor.getAllValues().get(1).getQueryObject().toJson()).contains("\"$in\": [2]");
+    }
+
+    @Test
+    void archive_preparesArchiveCollectionBeforeMovingItems() {
+        stubCollections();
+        when(mongoOperations.find(any(Query.class), eq(WishlistItem.class))).thenReturn(List.of());
+
+        ArchiveReport report = wishlistArchiveService.archive();
+
+        assertThat(report.getItemsArchived()).isZero();
+        verify(mongoIndexInitializer).ensureArchiveCollection();
+        verify(mongoOperations, never()).bulkOps(any(), any(Class.class), anyString());
+    }
+
+    @Test
+    void archive_rejectsInvalidAge() {
+        assertThatThrownBy(() -> wishlistArchiveService.archive(0))
+                .isInstanceOf(BadRequestException.class)
+                .hasMessage("A idade mínima para arquivamento é de 1 dia");
+
+        verifyNoInteractions(mongoOperations);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void findArchivedItemsByClientId_readsProjectionFromArchiveCollection() {
+        ExecutableFindOperation.ExecutableFind<WishlistItem> find = mock(ExecutableFindOperation.ExecutableFind.class);
+        ExecutableFindOperation.FindWithProjection<WishlistItem> inArchive = mock(ExecutableFindOperation.FindWithProjection.class);
+        ExecutableFindOperation.FindWithQuery<WishlistItemIds> projected = mock(ExecutableFindOperation.FindWithQuery.class);
+        ExecutableFindOperation.TerminatingFind<WishlistItemIds> terminating = mock(ExecutableFindOperation.TerminatingFind.class);
+        List<WishlistItemIds> archived = List.of(new WishlistItemIds(1L, 100));
+        when(mongoOperations.query(WishlistItem.class)).thenReturn(find);
+        when(find.inCollection(WishlistArchiveService.ARCHIVE_COLLECTION)).thenReturn(inArchive);
+        when(inArchive.as(WishlistItemIds.class)).thenReturn(projected);
+        when(projected.matching(any(Query.class))).thenReturn(terminating);
+        when(terminating.all()).thenReturn(archived);
+
+        List<WishlistItemIds> result = wishlistArchiveService.findArchivedItemsByClientId(10, WishlistItemIds.class);
+
+        assertThat(result).isSameAs(archived);
+    }
+
+    @Test
+    void deleteArchivedItemById_removesFromArchiveCollection() {
+        WishlistItem archived = oldItems(7, 1).get(0);
+        when(mongoOperations.findAndRemove(any(Query.class), eq(WishlistItem.class),
+                eq(WishlistArchiveService.ARCHIVE_COLLECTION))).thenReturn(archived);
+
+        assertThat(wishlistArchiveService.deleteArchivedItemById(7L)).isSameAs(archived);
+
+        verify(mongoOperations).findAndRemove(queryCaptor.capture(), eq(WishlistItem.class),
+                eq(WishlistArchiveService.ARCHIVE_COLLECTION));
+        assertThat(queryCaptor.getValue().getQueryObject().toJson()).contains("\"_id\": 7");
+    }
+
+    @Test
+    void deleteAllArchivedItems_purgesArchiveCollection() {
+        wishlistArchiveService.deleteAllArchivedItems();
+
+        verify(mongoOperations).remove(any(Query.class), eq(WishlistArchiveService.ARCHIVE_COLLECTION));
+    }
+}
@@ -0,0 +1,136 @@
+package com.wishlist.service;
+
+import com.wishlist.domain.model.ClientWishlist;
+import com.wishlist.domain.model.WishlistItem;
+import com.wishlist.domain.repository.WishlistRepository;
+import com.wishlist.infra.exception.BadRequestException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class WishlistBatchServiceTest {
+
+    @Mock
+    private WishlistRepository wishlistRepository;
+
+    private WishlistBatchService wishlistBatchService;
+
+    @BeforeEach
+    void setUp() {
+        wishlistBatchService = new WishlistBatchService(wishlistRepository, 2, 5, 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        wishlistBatchService.shutdown();
+    }
+
+    private WishlistItem item(int clientId, int productId) {
+        WishlistItem it = new WishlistItem();
+        it.setClientId(clientId);
+        it.setProductId(productId);
+        return it;
+    }
+
+    @Test
+    void groupsItemsPerClientInRequestOrderUsingOneQueryPerChunk() {
+        when(wishlistRepository.findWishlistItemByClientIdIn(List.of(3, 1)))
+                .thenReturn(List.of(item(1, 100), item(3, 300), item(1, 101)));
+        when(wishlistRepository.findWishlistItemByClientIdIn(List.of(2)))
+                .thenReturn(List.of());
+
+        List<ClientWishlist> result = wishlistBatchService.getWishlistsByClientIds(List.of(3, 1, 3, 2)).toList();
+
+        assertThat(result).extracting(ClientWishlist::getClientId).containsExactly(3, 1, 2);
+        assertThat(result.get(0).getItens()).extracting(WishlistItem::getProductId).containsExactly(300);
+        assertThat(result.get(1).getItens()).extracting(WishlistItem::getProductId).containsExactly(100, 101);
+        assertThat(result.get(2).getItens()).isEmpty();
+        verify(wishlistRepository, times(2)).findWishlistItemByClientIdIn(anyCollection());
+    }
+
+    @Test
+    void rejectsEmptyRequest() {
+        assertThatThrownBy(() -> wishlistBatchService.getWishlistsByClientIds(List.of()))
+                .isInstanceOf(BadRequestException.class)
+                .hasMessage("Informe ao menos um clientId");
+
+        verifyNoInteractions(wishlistRepository);
+    }
+
+    @Test
+    void rejectsNullClientId() {
+        assertThatThrownBy(() -> wishlistBatchService.getWishlistsByClientIds(Arrays.asList(1, null)))
+                .isInstanceOf(BadRequestException.class)
+                .hasMessage("clientId não pode ser nulo");
+    }
+
+    @Test
+    void rejectsRequestsAboveTheClientLimit() {
+        assertThatThrownBy(() -> wishlistBatchService.getWishlistsByClientIds(List.of(1, 2, 3, 4, 5, 6)))
+                .isInstanceOf(BadRequestException.class)
+                .hasMessage("Máximo de 5 clientes por requisição");
+
+        verifyNoInteractions(wishlistRepository);
+    }
+
+    @Test
+    void propagatesRepositoryFailure() {
+        when(wishlistRepository.findWishlistItemByClientIdIn(anyCollection()))
+                .thenThrow(new IllegalStateException("mongo fora"));
+
+        assertThatThrownBy(() -> wishlistBatchService.getWishlistsByClientIds(List.of(1)).toList())
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("mongo fora");
+    }
+
+    @Test
+    void keepsAtMostParallelismChunksInFlightUntilResultsAreConsumed() throws Exception {
+        wishlistBatchService = new WishlistBatchService(wishlistRepository, 1, 10, 2);
+        when(wishlistRepository.findWishlistItemByClientIdIn(anyCollection())).thenReturn(List.of());
+
+        Iterator<ClientWishlist> wishlists = wishlistBatchService.getWishlistsByClientIds(List.of(1, 2, 3, 4, 5)).iterator();
+        assertThat(wishlists.next().getClientId()).isEqualTo(1);
+        awaitExecutor();
+
+        // o primeiro lote foi consumido, o segundo está pronto e nenhum outro foi disparado
+        verify(wishlistRepository, times(2)).findWishlistItemByClientIdIn(anyCollection());
+    }
+
+    @Test
+    void closingTheStreamCancelsPendingChunks() throws Exception {
+        wishlistBatchService = new WishlistBatchService(wishlistRepository, 1, 10, 2);
+        when(wishlistRepository.findWishlistItemByClientIdIn(anyCollection())).thenReturn(List.of());
+
+        Stream<ClientWishlist> stream = wishlistBatchService.getWishlistsByClientIds(List.of(1, 2, 3, 4, 5));
+        Iterator<ClientWishlist> wishlists = stream.iterator();
+        wishlists.next();
+        stream.close();
+
+        assertThat(wishlists.hasNext()).isFalse();
+        awaitExecutor();
+        verify(wishlistRepository, atMost(2)).findWishlistItemByClientIdIn(anyCollection());
+    }
+
+    private void awaitExecutor() throws InterruptedException {
+        ExecutorService executor = (ExecutorService) ReflectionTestUtils.getField(wishlistBatchService, "executor");
+        executor.shutdown();
+        assertThat(executor.awaitTermination(5, TimeUnit.SECONDS)).isTrue();
+    }
+}
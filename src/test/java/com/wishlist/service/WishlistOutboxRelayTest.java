@@ -0,0 +1,162 @@
+package com.wishlist.service;
+
+import com.wishlist.domain.model.OutboxMetrics;
+import com.wishlist.domain.model.OutboxRelayLease;
+import com.wishlist.domain.model.WishlistEvent;
+import com.wishlist.domain.model.WishlistEventType;
+import com.wishlist.domain.model.WishlistItem;
+import com.wishlist.infra.outbox.WishlistEventSink;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class WishlistOutboxRelayTest {
+
+    @Mock
+    private MongoOperations mongoOperations;
+
+    @Mock
+    private WishlistEventSink wishlistEventSink;
+
+    @InjectMocks
+    private WishlistOutboxRelay wishlistOutboxRelay;
+
+    @Captor
+    private ArgumentCaptor<Query> queryCaptor;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(wishlistOutboxRelay, "enabled", true);
+        ReflectionTestUtils.setField(wishlistOutboxRelay, "batchSize", 2);
+        ReflectionTestUtils.setField(wishlistOutboxRelay, "leaseMillis", 30_000L);
+        lenient().when(claimLease()).thenReturn(new OutboxRelayLease());
+    }
+
+    private OutboxRelayLease claimLease() {
+        return mongoOperations.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+                eq(OutboxRelayLease.class));
+    }
+
+    private List<WishlistEvent> events(int count) {
+        return IntStream.range(0, count)
+                .mapToObj(i -> {
+                    WishlistItem it = new WishlistItem();
+                    it.setId((long) i);
+                    it.setClientId(10);
+                    it.setProductId(100 + i);
+                    return WishlistEvent.of(WishlistEventType.ADDED, it);
+                }).toList();
+    }
+
+    @Test
+    void relay_publishesPendingEventsInOrderAndRemovesThemAfterPublishing() {
+        List<WishlistEvent> first = events(2);
+        List<WishlistEvent> second = events(1);
+        when(mongoOperations.find(any(Query.class), eq(WishlistEvent.class))).thenReturn(first, second);
+
+        wishlistOutboxRelay.relay();
+
+        InOrder inOrder = inOrder(wishlistEventSink, mongoOperations);
+        inOrder.verify(wishlistEventSink).publish(first);
+        inOrder.verify(mongoOperations).remove(any(Query.class), eq(WishlistEvent.class));
+        inOrder.verify(wishlistEventSink).publish(second);
+        inOrder.verify(mongoOperations).remove(any(Query.class), eq(WishlistEvent.class));
+
+        verify(mongoOperations, times(2)).find(queryCaptor.capture(), eq(WishlistEvent.class));
+        assertThat(queryCaptor.getValue().getSortObject().toJson()).isEqualTo("{\"sequence\": 1}");
+        assertThat(queryCaptor.getValue().getLimit()).isEqualTo(2);
+    }
+
+    @Test
+    void relay_keepsEventsInOutboxWhenSinkFails() {
+        when(mongoOperations.find(any(Query.class), eq(WishlistEvent.class))).thenReturn(events(2));
+        doThrow(new IllegalStateException("Fila de eventos cheia")).when(wishlistEventSink).publish(any());
+
+        wishlistOutboxRelay.relay();
+
+        verify(mongoOperations, never()).remove(any(Query.class), eq(WishlistEvent.class));
+        when(mongoOperations.count(any(Query.class), eq(WishlistEvent.class))).thenReturn(2L);
+        OutboxMetrics metrics = wishlistOutboxRelay.metrics();
+        assertThat(metrics.getFailures()).isEqualTo(1);
+        assertThat(metrics.getPublished()).isZero();
+        assertThat(metrics.getPending()).isEqualTo(2);
+    }
+
+    @Test
+    void relay_updatesThroughputMetrics() {
+        when(mongoOperations.find(any(Query.class), eq(WishlistEvent.class))).thenReturn(events(1));
+
+        wishlistOutboxRelay.relay();
+
+        OutboxMetrics metrics = wishlistOutboxRelay.metrics();
+        assertThat(metrics.getPublished()).isEqualTo(1);
+        assertThat(metrics.getBatches()).isEqualTo(1);
+        assertThat(metrics.getLastBatchSize()).isEqualTo(1);
+        assertThat(metrics.getEventsPerSecond()).isPositive();
+    }
+
+    @Test
+    void relay_claimsLeaseBeforeEachBatch() {
+        when(mongoOperations.find(any(Query.class), eq(WishlistEvent.class))).thenReturn(events(2), events(1));
+
+        wishlistOutboxRelay.relay();
+
+        verify(mongoOperations, times(2)).findAndModify(queryCaptor.capture(), any(Update.class),
+                any(FindAndModifyOptions.class), eq(OutboxRelayLease.class));
+        assertThat(queryCaptor.getAllValues().get(0).getQueryObject())
+                .containsEntry("_id", OutboxRelayLease.RELAY)
+                .containsKey("$or");
+    }
+
+    @Test
+    void relay_stopsWhenLeaseIsLostBetweenBatches() {
+        when(claimLease()).thenReturn(new OutboxRelayLease(), (OutboxRelayLease) null);
+        when(mongoOperations.find(any(Query.class), eq(WishlistEvent.class))).thenReturn(events(2));
+
+        wishlistOutboxRelay.relay();
+
+        verify(wishlistEventSink, times(1)).publish(any());
+        verify(mongoOperations, times(1)).find(any(Query.class), eq(WishlistEvent.class));
+    }
+
+    @Test
+    void relay_publishesNothingWhileAnotherInstanceHoldsTheLease() {
+        when(claimLease()).thenThrow(new DuplicateKeyException("E11000 duplicate key error"));
+
+        wishlistOutboxRelay.relay();
+
+        verify(mongoOperations, never()).find(any(Query.class), eq(WishlistEvent.class));
+        verifyNoInteractions(wishlistEventSink);
+        assertThat(wishlistOutboxRelay.metrics().getFailures()).isZero();
+    }
+
+    @Test
+    void relay_doesNothingWhenOutboxIsDisabled() {
+        ReflectionTestUtils.setField(wishlistOutboxRelay, "enabled", false);
+
+        wishlistOutboxRelay.relay();
+
+        verifyNoInteractions(mongoOperations, wishlistEventSink);
+    }
+}
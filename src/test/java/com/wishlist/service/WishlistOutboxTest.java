@@ -0,0 +1,59 @@
+package com.wishlist.service;
+
+import com.wishlist.domain.model.WishlistEvent;
+import com.wishlist.domain.model.WishlistEventType;
+import com.wishlist.domain.model.WishlistItem;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class WishlistOutboxTest {
+
+    @Mock
+    private MongoOperations mongoOperations;
+
+    @Mock
+    private SequenceGeneratorService sequenceGeneratorService;
+
+    @InjectMocks
+    private WishlistOutbox wishlistOutbox;
+
+    @Captor
+    private ArgumentCaptor<WishlistEvent> eventCaptor;
+
+    @Test
+    void record_takesSequenceFromOutboxCounterWhenWriting() {
+        ReflectionTestUtils.setField(wishlistOutbox, "enabled", true);
+        WishlistItem it = new WishlistItem();
+        it.setId(42L);
+        it.setClientId(10);
+        it.setProductId(100);
+        when(sequenceGeneratorService.generateSequence(WishlistEvent.SEQUENCE_NAME)).thenReturn(7L, 8L);
+
+        wishlistOutbox.record(WishlistEvent.of(WishlistEventType.ADDED, it));
+        wishlistOutbox.record(WishlistEvent.purged());
+
+        verify(mongoOperations, times(2)).insert(eventCaptor.capture());
+        assertThat(eventCaptor.getAllValues())
+                .extracting(WishlistEvent::getType, WishlistEvent::getSequence)
+                .containsExactly(tuple(WishlistEventType.ADDED, 7L), tuple(WishlistEventType.PURGED, 8L));
+    }
+
+    @Test
+    void disabledOutboxWritesNothing() {
+        wishlistOutbox.record(WishlistEvent.purged());
+
+        verifyNoInteractions(mongoOperations, sequenceGeneratorService);
+    }
+}
@@ -1,8 +1,13 @@
 package com.wishlist.service;
 
 import com.wishlist.domain.model.Wishlist;
+import com.wishlist.domain.model.WishlistEvent;
+import com.wishlist.domain.model.WishlistEventType;
 import com.wishlist.domain.model.WishlistItem;
+import com.wishlist.domain.model.WishlistItemIds;
+import com.wishlist.domain.model.WishlistItemSummary;
 import com.wishlist.domain.repository.WishlistRepository;
+import com.wishlist.infra.concurrent.SingleFlight;
 import com.wishlist.infra.exception.BadRequestException;
 import com.wishlist.infra.exception.NotFoundException;
 import org.junit.jupiter.api.DisplayName;
@@ -11,9 +16,16 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.*;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
@@ -29,6 +41,15 @@ class WishlistServiceTest {
     @Mock
     private SequenceGeneratorService sequenceGeneratorService;
 
+    @Mock
+    private WishlistArchiveService wishlistArchiveService;
+
+    @Mock
+    private WishlistOutbox wishlistOutbox;
+
+    @Captor
+    private ArgumentCaptor<WishlistEvent> eventCaptor;
+
     @InjectMocks
     private WishlistService wishlistService;
 
@@ -57,23 +78,23 @@ class WishlistServiceTest {
         @Test
         void returnsItemWhenFound() {
             WishlistItem it = sampleItem();
-            when(wishlistRepository.findById(1L)).thenReturn(Optional.of(it));
+            when(wishlistRepository.findWishlistItemById(1L, WishlistItem.class)).thenReturn(Optional.of(it));
 
             WishlistItem result = wishlistService.getWishlistItemById(1L);
 
             assertThat(result).isSameAs(it);
-            verify(wishlistRepository).findById(1L);
+            verify(wishlistRepository).findWishlistItemById(1L, WishlistItem.class);
         }
 
         @Test
         void throwsNotFoundWhenMissing() {
-            when(wishlistRepository.findById(999L)).thenReturn(Optional.empty());
+            when(wishlistRepository.findWishlistItemById(999L, WishlistItem.class)).thenReturn(Optional.empty());
 
             assertThatThrownBy(() -> wishlistService.getWishlistItemById(999L))
                     .isInstanceOf(NotFoundException.class)
                     .hasMessage("Item não encontrado");
 
-            verify(wishlistRepository).findById(999L);
+            verify(wishlistRepository).findWishlistItemById(999L, WishlistItem.class);
         }
     }
 
@@ -92,7 +113,7 @@ class WishlistServiceTest {
                     }).collect(Collectors.toList());
             w.setItens(items);
 
-            when(wishlistRepository.findWishlistItemByClientId(1)).thenReturn(List.of());
+            when(wishlistRepository.findWishlistItemByClientId(1, WishlistItemIds.class)).thenReturn(List.of());
             when(sequenceGeneratorService.generateSequence(WishlistItem.SEQUENCE_NAME)).thenReturn(100L);
             when(wishlistRepository.save(any(WishlistItem.class))).thenAnswer(invocation -> invocation.getArgument(0));
 
@@ -109,15 +130,11 @@ class WishlistServiceTest {
         @Test
         void throwsBadRequestWhenClientHas20Items() {
             WishlistItem toAdd = sampleItem();
-            List<WishlistItem> twenty = IntStream.range(0, 20)
-                    .mapToObj(i -> {
-                        WishlistItem it = new WishlistItem();
-                        it.setClientId(toAdd.getClientId());
-                        it.setProductId(1000 + i);
-                        return it;
-                    }).collect(Collectors.toList());
+            List<WishlistItemIds> twenty = IntStream.range(0, 20)
+                    .mapToObj(i -> new WishlistItemIds((long) i, 1000 + i))
+                    .collect(Collectors.toList());
 
-            when(wishlistRepository.findWishlistItemByClientId(toAdd.getClientId())).thenReturn(twenty);
+            when(wishlistRepository.findWishlistItemByClientId(toAdd.getClientId(), WishlistItemIds.class)).thenReturn(twenty);
 
             assertThatThrownBy(() -> wishlistService.addWishlistItem(toAdd))
                     .isInstanceOf(BadRequestException.class)
@@ -125,16 +142,15 @@ class WishlistServiceTest {
 
             verify(wishlistRepository, never()).save(any());
             verify(sequenceGeneratorService, never()).generateSequence(anyString());
+            verifyNoInteractions(wishlistOutbox);
         }
 
         @Test
         void throwsBadRequestWhenItemAlreadyExists() {
             WishlistItem toAdd = sampleItem();
-            WishlistItem existing = new WishlistItem();
-            existing.setClientId(toAdd.getClientId());
-            existing.setProductId(toAdd.getProductId());
+            WishlistItemIds existing = new WishlistItemIds(2L, toAdd.getProductId());
 
-            when(wishlistRepository.findWishlistItemByClientId(toAdd.getClientId())).thenReturn(List.of(existing));
+            when(wishlistRepository.findWishlistItemByClientId(toAdd.getClientId(), WishlistItemIds.class)).thenReturn(List.of(existing));
 
             assertThatThrownBy(() -> wishlistService.addWishlistItem(toAdd))
                     .isInstanceOf(BadRequestException.class)
@@ -142,13 +158,47 @@ class WishlistServiceTest {
 
             verify(wishlistRepository, never()).save(any());
             verify(sequenceGeneratorService, never()).generateSequence(anyString());
+            verifyNoInteractions(wishlistOutbox);
+        }
+
+        @Test
+        void countsArchivedItemsWhenCheckingForDuplicates() {
+            WishlistItem toAdd = sampleItem();
+            when(wishlistRepository.findWishlistItemByClientId(toAdd.getClientId(), WishlistItemIds.class)).thenReturn(List.of());
+            when(wishlistArchiveService.findArchivedItemsByClientId(toAdd.getClientId(), WishlistItemIds.class))
+                    .thenReturn(List.of(new WishlistItemIds(2L, toAdd.getProductId())));
+
+            assertThatThrownBy(() -> wishlistService.addWishlistItem(toAdd))
+                    .isInstanceOf(BadRequestException.class)
+                    .hasMessage("Cliente já possui esse item em sua wishlist");
+
+            verify(wishlistRepository, never()).save(any());
+        }
+
+        @Test
+        void countsArchivedItemsTowardsTheLimit() {
+            WishlistItem toAdd = sampleItem();
+            List<WishlistItemIds> hot = IntStream.range(0, 15)
+                    .mapToObj(i -> new WishlistItemIds((long) i, 1000 + i))
+                    .collect(Collectors.toList());
+            List<WishlistItemIds> archived = IntStream.range(15, 20)
+                    .mapToObj(i -> new WishlistItemIds((long) i, 1000 + i))
+                    .collect(Collectors.toList());
+            when(wishlistRepository.findWishlistItemByClientId(toAdd.getClientId(), WishlistItemIds.class)).thenReturn(hot);
+            when(wishlistArchiveService.findArchivedItemsByClientId(toAdd.getClientId(), WishlistItemIds.class)).thenReturn(archived);
+
+            assertThatThrownBy(() -> wishlistService.addWishlistItem(toAdd))
+                    .isInstanceOf(BadRequestException.class)
+                    .hasMessage("Cliente já possui 20 itens em sua wishlist");
+
+            verify(wishlistRepository, never()).save(any());
         }
 
         @Test
         void savesAndReturnsItemWhenValid() {
             WishlistItem toAdd = sampleItem();
             toAdd.setId(null);
-            when(wishlistRepository.findWishlistItemByClientId(toAdd.getClientId())).thenReturn(List.of());
+            when(wishlistRepository.findWishlistItemByClientId(toAdd.getClientId(), WishlistItemIds.class)).thenReturn(List.of());
             when(sequenceGeneratorService.generateSequence(WishlistItem.SEQUENCE_NAME)).thenReturn(500L);
             when(wishlistRepository.save(any(WishlistItem.class))).thenAnswer(invocation -> invocation.getArgument(0));
 
@@ -162,33 +212,177 @@ class WishlistServiceTest {
             assertThat(saved.getId()).isEqualTo(500L);
             assertThat(saved.getClientId()).isEqualTo(toAdd.getClientId());
             assertThat(saved.getProductId()).isEqualTo(toAdd.getProductId());
+
+            verify(wishlistOutbox).record(eventCaptor.capture());
+            assertThat(eventCaptor.getValue().getType()).isEqualTo(WishlistEventType.ADDED);
+            assertThat(eventCaptor.getValue().getItemId()).isEqualTo(500L);
+            assertThat(eventCaptor.getValue().getClientId()).isEqualTo(toAdd.getClientId());
         }
     }
 
     @Nested
-    @DisplayName("getWishlistByClientId")
+    @DisplayName("getWishlistItensByClientId")
     class GetByClient {
         @Test
         void throwsNotFoundWhenEmpty() {
-            when(wishlistRepository.findWishlistItemByClientId(10)).thenReturn(List.of());
+            when(wishlistRepository.findWishlistItemByClientId(10, WishlistItem.class)).thenReturn(List.of());
 
-            assertThatThrownBy(() -> wishlistService.getWishlistByClientId(10))
+            assertThatThrownBy(() -> wishlistService.getWishlistItensByClientId(10, false, WishlistItem.class))
                     .isInstanceOf(NotFoundException.class)
                     .hasMessage("Cliente não possui itens em sua wishlist");
 
-            verify(wishlistRepository).findWishlistItemByClientId(10);
+            verify(wishlistRepository).findWishlistItemByClientId(10, WishlistItem.class);
         }
 
         @Test
         void returnsWishlistWhenExists() {
             WishlistItem it = sampleItem();
-            when(wishlistRepository.findWishlistItemByClientId(10)).thenReturn(List.of(it));
+            when(wishlistRepository.findWishlistItemByClientId(10, WishlistItem.class)).thenReturn(List.of(it));
 
-            Wishlist result = wishlistService.getWishlistByClientId(10);
+            List<WishlistItem> result = wishlistService.getWishlistItensByClientId(10, false, WishlistItem.class);
 
-            assertThat(result).isNotNull();
-            assertThat(result.getItens()).containsExactly(it);
-            verify(wishlistRepository).findWishlistItemByClientId(10);
+            assertThat(result).containsExactly(it);
+            verify(wishlistRepository).findWishlistItemByClientId(10, WishlistItem.class);
+            verifyNoInteractions(wishlistArchiveService);
+        }
+
+        @Test
+        void mergesArchivedItemsWhenRequested() {
+            WishlistItem hot = sampleItem();
+            WishlistItem archived = sampleItem();
+            archived.setId(2L);
+            archived.setProductId(200);
+            when(wishlistRepository.findWishlistItemByClientId(10, WishlistItem.class)).thenReturn(List.of(hot));
+            when(wishlistArchiveService.findArchivedItemsByClientId(10, WishlistItem.class)).thenReturn(List.of(archived));
+
+            List<WishlistItem> result = wishlistService.getWishlistItensByClientId(10, true, WishlistItem.class);
+
+            assertThat(result).containsExactly(hot, archived);
+        }
+
+        @Test
+        void returnsArchivedItemsWhenHotListIsEmpty() {
+            WishlistItem archived = sampleItem();
+            when(wishlistRepository.findWishlistItemByClientId(10, WishlistItem.class)).thenReturn(List.of());
+            when(wishlistArchiveService.findArchivedItemsByClientId(10, WishlistItem.class)).thenReturn(List.of(archived));
+
+            List<WishlistItem> result = wishlistService.getWishlistItensByClientId(10, true, WishlistItem.class);
+
+            assertThat(result).containsExactly(archived);
+        }
+    }
+
+    @Nested
+    @DisplayName("projected views")
+    class ProjectedViews {
+        @Test
+        void getWishlistItensByClientId_usesRequestedProjection() {
+            WishlistItemIds ids = new WishlistItemIds(1L, 100);
+            when(wishlistRepository.findWishlistItemByClientId(10, WishlistItemIds.class)).thenReturn(List.of(ids));
+
+            List<WishlistItemIds> result = wishlistService.getWishlistItensByClientId(10, false, WishlistItemIds.class);
+
+            assertThat(result).containsExactly(ids);
+            verify(wishlistRepository, never()).findWishlistItemByClientId(10, WishlistItem.class);
+        }
+
+        @Test
+        void getWishlistItensByClientId_throwsNotFoundWhenEmpty() {
+            when(wishlistRepository.findWishlistItemByClientId(10, WishlistItemIds.class)).thenReturn(List.of());
+
+            assertThatThrownBy(() -> wishlistService.getWishlistItensByClientId(10, false, WishlistItemIds.class))
+                    .isInstanceOf(NotFoundException.class)
+                    .hasMessage("Cliente não possui itens em sua wishlist");
+        }
+
+        @Test
+        void getWishlistItemById_usesRequestedProjection() {
+            WishlistItemSummary summary = new WishlistItemSummary(1L, 10, 100, "Produto X");
+            when(wishlistRepository.findWishlistItemById(1L, WishlistItemSummary.class)).thenReturn(Optional.of(summary));
+
+            assertThat(wishlistService.getWishlistItemById(1L, WishlistItemSummary.class)).isSameAs(summary);
+        }
+
+        @Test
+        void getWishlistByClientIdAndProductId_usesRequestedProjection() {
+            WishlistItemIds ids = new WishlistItemIds(1L, 100);
+            when(wishlistRepository.findWishlistItemByClientIdAndProductId(10, 100, WishlistItemIds.class)).thenReturn(List.of(ids));
+
+            assertThat(wishlistService.getWishlistByClientIdAndProductId(10, 100, WishlistItemIds.class)).isSameAs(ids);
+        }
+    }
+
+    @Nested
+    @DisplayName("coalesced reads")
+    class CoalescedReads {
+        @Test
+        void concurrentReadsForSameClientShareOneQuery() throws Exception {
+            CountDownLatch release = new CountDownLatch(1);
+            CountDownLatch firstQuery = new CountDownLatch(1);
+            when(wishlistRepository.findWishlistItemByClientId(10, WishlistItem.class)).thenAnswer(invocation -> {
+                firstQuery.countDown();
+                release.await(5, TimeUnit.SECONDS);
+                return List.of(sampleItem());
+            });
+
+            ExecutorService executor = Executors.newFixedThreadPool(4);
+            try {
+                List<Future<List<WishlistItem>>> results = new ArrayList<>();
+                results.add(executor.submit(() -> wishlistService.getWishlistItensByClientId(10, false, WishlistItem.class)));
+                assertThat(firstQuery.await(5, TimeUnit.SECONDS)).isTrue();
+                for (int i = 0; i < 3; i++) {
+                    results.add(executor.submit(() -> wishlistService.getWishlistItensByClientId(10, false, WishlistItem.class)));
+                }
+                SingleFlight<?, ?> reads = (SingleFlight<?, ?>) ReflectionTestUtils.getField(wishlistService, "reads");
+                long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+                while (reads.waiters() < 3 && System.nanoTime() < deadline) {
+                    Thread.sleep(1);
+                }
+                assertThat(reads.waiters()).isEqualTo(3);
+                release.countDown();
+
+                for (Future<List<WishlistItem>> result : results) {
+                    assertThat(result.get(5, TimeUnit.SECONDS)).hasSize(1);
+                }
+            } finally {
+                executor.shutdownNow();
+            }
+            verify(wishlistRepository, times(1)).findWishlistItemByClientId(10, WishlistItem.class);
+        }
+
+        @Test
+        void writeForClientForcesFreshQueryForLaterReaders() throws Exception {
+            CountDownLatch release = new CountDownLatch(1);
+            CountDownLatch firstQuery = new CountDownLatch(1);
+            WishlistItem added = sampleItem();
+            added.setId(null);
+            added.setProductId(200);
+            when(wishlistRepository.findWishlistItemByClientId(10, WishlistItem.class))
+                    .thenAnswer(invocation -> {
+                        firstQuery.countDown();
+                        release.await(5, TimeUnit.SECONDS);
+                        return List.of(sampleItem());
+                    })
+                    .thenReturn(List.of(sampleItem(), added));
+            when(wishlistRepository.findWishlistItemByClientId(10, WishlistItemIds.class)).thenReturn(List.of());
+            when(wishlistRepository.save(any(WishlistItem.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+            ExecutorService executor = Executors.newSingleThreadExecutor();
+            try {
+                Future<List<WishlistItem>> before = executor.submit(
+                        () -> wishlistService.getWishlistItensByClientId(10, false, WishlistItem.class));
+                assertThat(firstQuery.await(5, TimeUnit.SECONDS)).isTrue();
+
+                wishlistService.addWishlistItem(added);
+                List<WishlistItem> after = wishlistService.getWishlistItensByClientId(10, false, WishlistItem.class);
+                release.countDown();
+
+                assertThat(after).hasSize(2);
+                assertThat(before.get(5, TimeUnit.SECONDS)).hasSize(1);
+            } finally {
+                executor.shutdownNow();
+            }
+            verify(wishlistRepository, times(2)).findWishlistItemByClientId(10, WishlistItem.class);
         }
     }
 
@@ -197,24 +391,24 @@ class WishlistServiceTest {
     class GetByClientAndProduct {
         @Test
         void throwsNotFoundWhenMissing() {
-            when(wishlistRepository.findWishlistItemByClientIdAndProductId(10, 200)).thenReturn(List.of());
+            when(wishlistRepository.findWishlistItemByClientIdAndProductId(10, 200, WishlistItem.class)).thenReturn(List.of());
 
             assertThatThrownBy(() -> wishlistService.getWishlistByClientIdAndProductId(10, 200))
                     .isInstanceOf(NotFoundException.class)
                     .hasMessage("Cliente não possui esse item em sua wishlist");
 
-            verify(wishlistRepository).findWishlistItemByClientIdAndProductId(10, 200);
+            verify(wishlistRepository).findWishlistItemByClientIdAndProductId(10, 200, WishlistItem.class);
         }
 
         @Test
         void returnsItemWhenFound() {
             WishlistItem it = sampleItem();
-            when(wishlistRepository.findWishlistItemByClientIdAndProductId(10, 100)).thenReturn(List.of(it));
+            when(wishlistRepository.findWishlistItemByClientIdAndProductId(10, 100, WishlistItem.class)).thenReturn(List.of(it));
 
             WishlistItem result = wishlistService.getWishlistByClientIdAndProductId(10, 100);
 
             assertThat(result).isSameAs(it);
-            verify(wishlistRepository).findWishlistItemByClientIdAndProductId(10, 100);
+            verify(wishlistRepository).findWishlistItemByClientIdAndProductId(10, 100, WishlistItem.class);
         }
     }
 
@@ -223,11 +417,37 @@ class WishlistServiceTest {
     class DeleteOperations {
         @Test
         void deleteWishlistItemById_delegatesToRepository() {
-            doNothing().when(wishlistRepository).deleteById(1L);
+            when(wishlistRepository.deleteWishlistItemById(1L)).thenReturn(sampleItem());
+
+            wishlistService.deleteWishlistItemById(1L);
+
+            verify(wishlistRepository).deleteWishlistItemById(1L);
+            verify(wishlistOutbox).record(eventCaptor.capture());
+            assertThat(eventCaptor.getValue().getType()).isEqualTo(WishlistEventType.DELETED);
+            assertThat(eventCaptor.getValue().getItemId()).isEqualTo(1L);
+            assertThat(eventCaptor.getValue().getClientId()).isEqualTo(10);
+        }
+
+        @Test
+        void deleteWishlistItemById_whenItemDoesNotExist_recordsNoEvent() {
+            when(wishlistRepository.deleteWishlistItemById(999L)).thenReturn(null);
+
+            wishlistService.deleteWishlistItemById(999L);
+
+            verify(wishlistArchiveService).deleteArchivedItemById(999L);
+            verifyNoInteractions(wishlistOutbox);
+        }
+
+        @Test
+        void deleteWishlistItemById_removesArchivedItem() {
+            when(wishlistRepository.deleteWishlistItemById(1L)).thenReturn(null);
+            when(wishlistArchiveService.deleteArchivedItemById(1L)).thenReturn(sampleItem());
 
             wishlistService.deleteWishlistItemById(1L);
 
-            verify(wishlistRepository).deleteById(1L);
+            verify(wishlistOutbox).record(eventCaptor.capture());
+            assertThat(eventCaptor.getValue().getType()).isEqualTo(WishlistEventType.DELETED);
+            assertThat(eventCaptor.getValue().getItemId()).isEqualTo(1L);
         }
 
         @Test
@@ -237,6 +457,9 @@ class WishlistServiceTest {
             wishlistService.deleteWishlist();
 
             verify(wishlistRepository).deleteAll();
+            verify(wishlistArchiveService).deleteAllArchivedItems();
+            verify(wishlistOutbox).record(eventCaptor.capture());
+            assertThat(eventCaptor.getValue().getType()).isEqualTo(WishlistEventType.PURGED);
         }
     }
 }
@@ -0,0 +1,207 @@
+package com.wishlist.service;
+
+import com.wishlist.domain.model.DatabaseSequence;
+import com.wishlist.domain.model.Wishlist;
+import com.wishlist.domain.model.WishlistItem;
+import com.wishlist.domain.model.WishlistItemIds;
+import com.wishlist.domain.repository.WishlistRepository;
+import com.wishlist.infra.exception.BadRequestException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+import org.springframework.transaction.annotation.EnableTransactionManagement;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Caminho com {@code wishlist.outbox.transactional=true}: os proxies transacionais de verdade sobre um gerenciador
+ * que só registra begin/commit/rollback, já que o Mongo em memória não tem transações.
+ */
+@SpringJUnitConfig(WishlistServiceTransactionTest.Config.class)
+class WishlistServiceTransactionTest {
+
+    @Configuration
+    @EnableTransactionManagement
+    static class Config {
+
+        @Bean
+        RecordingTransactionManager transactionManager() {
+            return new RecordingTransactionManager();
+        }
+
+        @Bean
+        MongoOperations mongoOperations() {
+            return mock(MongoOperations.class);
+        }
+
+        @Bean
+        WishlistRepository wishlistRepository() {
+            return mock(WishlistRepository.class);
+        }
+
+        @Bean
+        WishlistArchiveService wishlistArchiveService() {
+            return mock(WishlistArchiveService.class);
+        }
+
+        @Bean
+        WishlistOutbox wishlistOutbox() {
+            return mock(WishlistOutbox.class);
+        }
+
+        @Bean
+        SequenceGeneratorService sequenceGeneratorService(MongoOperations mongoOperations) {
+            return new SequenceGeneratorService(mongoOperations);
+        }
+
+        @Bean
+        WishlistService wishlistService(WishlistRepository wishlistRepository, SequenceGeneratorService sequenceGeneratorService,
+                                        WishlistArchiveService wishlistArchiveService, WishlistOutbox wishlistOutbox) {
+            return new WishlistService(wishlistRepository, sequenceGeneratorService, wishlistArchiveService, wishlistOutbox);
+        }
+    }
+
+    @Autowired
+    private WishlistService wishlistService;
+
+    @Autowired
+    private RecordingTransactionManager transactionManager;
+
+    @Autowired
+    private MongoOperations mongoOperations;
+
+    @Autowired
+    private WishlistRepository wishlistRepository;
+
+    @Autowired
+    private WishlistOutbox wishlistOutbox;
+
+    private final List<String> calls = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        reset(mongoOperations, wishlistRepository, wishlistOutbox);
+        transactionManager.events.clear();
+        calls.clear();
+        AtomicLong sequence = new AtomicLong(100);
+        when(mongoOperations.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+                eq(DatabaseSequence.class))).thenAnswer(invocation -> {
+            calls.add("sequence:" + (TransactionSynchronizationManager.isActualTransactionActive() ? "tx" : "no-tx"));
+            return new DatabaseSequence(WishlistItem.SEQUENCE_NAME, sequence.incrementAndGet());
+        });
+        when(wishlistRepository.findWishlistItemByClientId(any(), eq(WishlistItemIds.class))).thenReturn(List.of());
+        when(wishlistRepository.save(any(WishlistItem.class))).thenAnswer(invocation -> {
+            calls.add("save:" + (TransactionSynchronizationManager.isActualTransactionActive() ? "tx" : "no-tx"));
+            return invocation.getArgument(0);
+        });
+    }
+
+    private WishlistItem item(int productId) {
+        WishlistItem it = new WishlistItem();
+        it.setClientId(10);
+        it.setProductId(productId);
+        return it;
+    }
+
+    @Test
+    void addWishlistItem_allocatesIdOutsideTheTransaction() {
+        WishlistItem saved = wishlistService.addWishlistItem(item(1));
+
+        assertThat(saved.getId()).isEqualTo(101L);
+        assertThat(calls).containsExactly("sequence:no-tx", "save:tx");
+        assertThat(transactionManager.events).containsExactly("begin", "suspend", "resume", "commit");
+        verify(wishlistOutbox).record(any());
+    }
+
+    @Test
+    void addWishlist_keepsOneTransactionAndNeverHoldsTheCounter() {
+        wishlistService.addWishlist(new Wishlist(List.of(item(1), item(2), item(3))));
+
+        assertThat(calls).containsExactly(
+                "sequence:no-tx", "save:tx", "sequence:no-tx", "save:tx", "sequence:no-tx", "save:tx");
+        assertThat(transactionManager.events).filteredOn("begin"::equals).hasSize(1);
+        assertThat(transactionManager.events).endsWith("commit");
+    }
+
+    @Test
+    void addWishlist_rollsBackWhenAnItemIsRejected() {
+        when(wishlistRepository.findWishlistItemByClientId(any(), eq(WishlistItemIds.class)))
+                .thenReturn(List.of(), List.of(new WishlistItemIds(101L, 1)));
+
+        assertThatThrownBy(() -> wishlistService.addWishlist(new Wishlist(List.of(item(1), item(1)))))
+                .isInstanceOf(BadRequestException.class);
+
+        assertThat(transactionManager.events).endsWith("rollback").doesNotContain("commit");
+    }
+
+    /**
+     * Registra o ciclo da transação e simula a suspensão do recurso, como o MongoTransactionManager faz com a sessão.
+     */
+    static class RecordingTransactionManager extends AbstractPlatformTransactionManager {
+
+        private final ThreadLocal<Boolean> active = ThreadLocal.withInitial(() -> false);
+        final List<String> events = new CopyOnWriteArrayList<>();
+
+        @Override
+        protected Object doGetTransaction() {
+            return new boolean[]{active.get()};
+        }
+
+        @Override
+        protected boolean isExistingTransaction(Object transaction) {
+            return ((boolean[]) transaction)[0];
+        }
+
+        @Override
+        protected void doBegin(Object transaction, org.springframework.transaction.TransactionDefinition definition) {
+            active.set(true);
+            events.add("begin");
+        }
+
+        @Override
+        protected Object doSuspend(Object transaction) {
+            active.set(false);
+            events.add("suspend");
+            return Boolean.TRUE;
+        }
+
+        @Override
+        protected void doResume(Object transaction, Object suspendedResources) {
+            active.set(true);
+            events.add("resume");
+        }
+
+        @Override
+        protected void doCommit(DefaultTransactionStatus status) {
+            events.add("commit");
+        }
+
+        @Override
+        protected void doRollback(DefaultTransactionStatus status) {
+            events.add("rollback");
+        }
+
+        @Override
+        protected void doCleanupAfterCompletion(Object transaction) {
+            active.set(false);
+        }
+    }
+}